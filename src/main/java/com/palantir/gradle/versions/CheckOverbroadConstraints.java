@@ -43,6 +43,7 @@ import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
@@ -59,6 +60,9 @@ public abstract class CheckOverbroadConstraints extends DefaultTask {
     @InputFile
     public abstract RegularFileProperty getLockFile();
 
+    @Internal
+    public abstract Property<ParsedFilesCache> getParsedFilesCache();
+
     public CheckOverbroadConstraints() {
         getShouldFix().set(false);
         setGroup(LifecycleBasePlugin.VERIFICATION_GROUP);
@@ -69,10 +73,12 @@ public abstract class CheckOverbroadConstraints extends DefaultTask {
 
     @TaskAction
     public final void checkOverbroadConstraints() {
-        VersionsProps versionsProps =
-                VersionsProps.loadFromFile(getPropsFile().get().getAsFile().toPath());
-        LockState lockState =
-                new ConflictSafeLockFile(getLockFile().get().getAsFile().toPath()).readLocks();
+        VersionsProps versionsProps = getParsedFilesCache()
+                .get()
+                .readVersionsProps(getPropsFile().get().getAsFile().toPath());
+        LockState lockState = getParsedFilesCache()
+                .get()
+                .readLocks(getLockFile().get().getAsFile().toPath());
 
         checkOverbroadConstraints(versionsProps, lockState);
     }
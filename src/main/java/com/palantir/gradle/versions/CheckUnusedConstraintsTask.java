@@ -41,63 +41,60 @@ import org.gradle.api.provider.Property;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
 
-public class CheckUnusedConstraintsTask extends DefaultTask {
-
-    private final Property<Boolean> shouldFailWithConfigurationOnDemandMessage =
-            getProject().getObjects().property(Boolean.class);
-    private final Property<Boolean> shouldFix = getProject().getObjects().property(Boolean.class);
-    private final RegularFileProperty propsFileProperty =
-            getProject().getObjects().fileProperty();
-    private final SetProperty<String> classpath = getProject().getObjects().setProperty(String.class);
+public abstract class CheckUnusedConstraintsTask extends DefaultTask {
 
     public CheckUnusedConstraintsTask() {
-        shouldFailWithConfigurationOnDemandMessage.set(false);
-        shouldFix.set(false);
+        getShouldFailWithConfigurationOnDemandMessage().set(false);
+        getShouldFix().set(false);
         setGroup(LifecycleBasePlugin.VERIFICATION_GROUP);
         setDescription("Ensures all versions in your versions.props correspond to an actual gradle dependency");
         getOutputs().upToDateWhen(_task -> true); // task has no outputs, this is needed for it to be up to date
     }
 
     final void setPropsFile(File propsFile) {
-        this.propsFileProperty.set(propsFile);
+        getVersionsPropsFile().set(propsFile);
     }
 
     @Input
-    public final SetProperty<String> getClasspath() {
-        return classpath;
-    }
+    public abstract SetProperty<String> getClasspath();
 
     @InputFile
+    public abstract RegularFileProperty getVersionsPropsFile();
+
+    /**
+     * The versions.props file to check.
+     *
+     * @deprecated use {@link #getVersionsPropsFile()}, which is the same property.
+     */
+    @Deprecated
+    @Internal
     public final Property<RegularFile> getPropsFile() {
-        return propsFileProperty;
+        return getVersionsPropsFile();
     }
 
     @Input
-    public final Property<Boolean> getShouldFailWithConfigurationOnDemandMessage() {
-        return shouldFailWithConfigurationOnDemandMessage;
-    }
+    public abstract Property<Boolean> getShouldFailWithConfigurationOnDemandMessage();
 
     final void setShouldFailWithConfigurationOnDemandMessage(boolean shouldFail) {
-        this.shouldFailWithConfigurationOnDemandMessage.set(shouldFail);
+        getShouldFailWithConfigurationOnDemandMessage().set(shouldFail);
     }
 
     @Input
-    public final Property<Boolean> getShouldFix() {
-        return shouldFix;
-    }
+    public abstract Property<Boolean> getShouldFix();
 
     @Option(option = "fix", description = "Whether to apply the suggested fix to versions.props")
     public final void setShouldFix(boolean shouldFix) {
-        this.shouldFix.set(shouldFix);
+        getShouldFix().set(shouldFix);
     }
 
     @TaskAction
     public final void checkNoUnusedPin() {
-        if (shouldFailWithConfigurationOnDemandMessage.get()) {
+        if (getShouldFailWithConfigurationOnDemandMessage().get()) {
             throw new ExceptionWithSuggestion(
                     "The gradle-consistent-versions checkUnusedConstraints task must have all projects configured to"
                             + " work accurately, but due to Gradle configuration-on-demand, not all projects were"
@@ -107,8 +104,8 @@ public class CheckUnusedConstraintsTask extends DefaultTask {
         }
 
         Set<String> artifacts = getClasspath().get();
-        VersionsProps versionsProps =
-                VersionsProps.loadFromFile(getPropsFile().get().getAsFile().toPath());
+        VersionsProps versionsProps = VersionsProps.loadFromFile(
+                getVersionsPropsFile().get().getAsFile().toPath());
 
         Set<String> exactConstraints = versionsProps.getFuzzyResolver().exactMatches();
         Set<String> unusedConstraints = new HashSet<>(Sets.difference(exactConstraints, artifacts));
@@ -123,14 +120,13 @@ public class CheckUnusedConstraintsTask extends DefaultTask {
 
         if (unusedConstraints.isEmpty()) {
             return;
-        } else if (shouldFix.get()) {
-            getProject()
-                    .getLogger()
+        } else if (getShouldFix().get()) {
+            getLogger()
                     .lifecycle("Removing unused pins from versions.props:\n"
                             + unusedConstraints.stream()
                                     .map(name -> String.format(" - '%s'", name))
                                     .collect(Collectors.joining("\n")));
-            writeVersionsProps(getPropsFile().get().getAsFile(), unusedConstraints);
+            writeVersionsProps(getVersionsPropsFile().get().getAsFile(), unusedConstraints);
             return;
         }
 
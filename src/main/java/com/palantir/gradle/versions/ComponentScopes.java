@@ -0,0 +1,96 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.palantir.gradle.versions.VersionsLockPlugin.GcvScope;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+
+/**
+ * Attributes a {@link GcvScope} to every component of a {@link ResolutionGraph}.
+ *
+ * <p>A component's scope is the smallest (by {@link VersionsLockPlugin#GCV_SCOPE_COMPARATOR}) scope of any direct
+ * dependency from a project that it can be reached from. Only non-constraint dependencies on a module are followed, and
+ * a path stops at the first project which has a direct scope for the requested module.
+ *
+ * <p>Rather than searching backwards from every component, scopes are pushed forwards from those direct dependencies
+ * in one breadth first pass per scope, smallest scope first, so that every component and dependency is visited at most
+ * once per scope.
+ */
+final class ComponentScopes {
+    private ComponentScopes() {}
+
+    /**
+     * Returns the {@link ScopeMasks mask} of the single scope of every component of {@code graph}, indexed like its
+     * components, with {@link ScopeMasks#NONE} for those that cannot be reached from any direct dependency.
+     */
+    static byte[] compute(ResolutionGraph graph, DirectDependencyScopes directDependencyScopes) {
+        byte[] scopes = new byte[graph.size()];
+        byte[] directScopes = directScopes(graph, directDependencyScopes);
+        int[] queue = new int[graph.size()];
+        for (GcvScope gcvScope : ScopeMasks.IN_PRIORITY_ORDER) {
+            byte scope = ScopeMasks.of(gcvScope);
+            int head = 0;
+            int tail = 0;
+            for (int edge = 0; edge < directScopes.length; edge++) {
+                if (directScopes[edge] == scope && isFollowed(graph, edge)) {
+                    tail = assign(graph.target(edge), scope, scopes, queue, tail);
+                }
+            }
+
+            while (head < tail) {
+                int component = queue[head++];
+                for (int edge = graph.dependenciesStart(component); edge < graph.dependenciesEnd(component); edge++) {
+                    if (directScopes[edge] == ScopeMasks.NONE && isFollowed(graph, edge)) {
+                        tail = assign(graph.target(edge), scope, scopes, queue, tail);
+                    }
+                }
+            }
+        }
+        return scopes;
+    }
+
+    /**
+     * Returns, for every edge that is a direct dependency of a project, the mask of its scope, in which case it starts
+     * a new path rather than continuing that of the project.
+     */
+    private static byte[] directScopes(ResolutionGraph graph, DirectDependencyScopes directDependencyScopes) {
+        byte[] directScopes = new byte[graph.numEdges()];
+        for (int edge = 0; edge < directScopes.length; edge++) {
+            if (graph.isFromProject(edge) && graph.isModuleSelector(edge)) {
+                ModuleIdentifier requestedModule =
+                        ((ModuleComponentSelector) graph.dependency(edge).getRequested()).getModuleIdentifier();
+                directScopes[edge] = ScopeMasks.onlySmallest(directDependencyScopes.scopeMaskFor(requestedModule));
+            }
+        }
+        return directScopes;
+    }
+
+    private static boolean isFollowed(ResolutionGraph graph, int edge) {
+        return !graph.isConstraint(edge) && graph.isModuleSelector(edge);
+    }
+
+    /** Assigns {@code scope} to {@code component} if it has none yet, enqueueing it, and returns the new tail. */
+    private static int assign(int component, byte scope, byte[] scopes, int[] queue, int tail) {
+        if (scopes[component] != ScopeMasks.NONE) {
+            return tail;
+        }
+        scopes[component] = scope;
+        queue[tail] = component;
+        return tail + 1;
+    }
+}
@@ -17,28 +17,35 @@
 package com.palantir.gradle.versions;
 
 import com.palantir.gradle.versions.lockstate.FullLockState;
-import com.palantir.gradle.versions.lockstate.ImmutableLine;
 import com.palantir.gradle.versions.lockstate.Line;
 import com.palantir.gradle.versions.lockstate.LockState;
 import com.palantir.gradle.versions.lockstate.LockStates;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
 import java.util.stream.Stream;
 import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 final class ConflictSafeLockFile {
+    private static final Logger log = Logging.getLogger(ConflictSafeLockFile.class);
     private static final String HEADER_COMMENT = "# Run ./gradlew writeVersionsLocks to regenerate this file";
-    private static final Pattern LINE_PATTERN =
-            Pattern.compile("(?<group>[^(:]+):(?<artifact>[^(:]+):(?<version>[^(:\\s]+)"
-                    + "\\s+\\((?<num>\\d+) constraints: (?<hash>\\w+)\\)");
-    private static final String TEST_DEPENDENCIES_MARKER = "[Test dependencies]";
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int COMPARE_BUFFER_SIZE = 8192;
 
     private final Path lockfile;
 
@@ -46,75 +53,196 @@ final class ConflictSafeLockFile {
         this.lockfile = lockfile;
     }
 
-    /** Reads and returns the {@link LockState}. */
+    /**
+     * Reads and returns the {@link LockState}. Prefer {@link ParsedFilesCache#readLocks} where a build is available, so
+     * the file is only parsed once.
+     */
     public LockState readLocks() {
-        try (Stream<String> linesStream = Files.lines(lockfile)) {
-            List<String> lines =
-                    linesStream.filter(line -> !line.trim().startsWith("#")).collect(Collectors.toList());
-            int testDependenciesPosition = lines.indexOf(TEST_DEPENDENCIES_MARKER);
-            Stream<String> productionDeps;
-            Stream<String> testDeps;
-            if (testDependenciesPosition >= 0) {
-                productionDeps = lines
-                        .subList(0, testDependenciesPosition - 1) // skip blank line before marker
-                        .stream();
-                testDeps = lines.subList(testDependenciesPosition + 1, lines.size()).stream();
-            } else {
-                productionDeps = lines.stream().filter(line -> !line.trim().startsWith("#"));
-                testDeps = Stream.empty();
-            }
-
-            return LockState.from(parseLines(productionDeps), parseLines(testDeps));
+        try {
+            return parse(Files.readAllBytes(lockfile));
         } catch (IOException e) {
             throw new GradleException(
                     String.format("Couldn't load versions from palantir dependency lock file: %s", lockfile), e);
         }
     }
 
+    /** Parses the already read {@code content} of this lock file. */
+    LockState parse(byte[] content) throws IOException {
+        return LockFileParser.parse(ParsedFilesCache.decode(content), lockfile);
+    }
+
     public Stream<Line> parseLines(Stream<String> stringStream) {
-        return stringStream
-                .map(line -> {
-                    Matcher matcher = LINE_PATTERN.matcher(line);
-                    Validators.checkResultOrThrow(
-                            matcher.matches(),
-                            String.format("Found unparseable line in dependency lock file '%s': %s", lockfile, line),
-                            lockfile);
-                    return matcher;
-                })
-                .map(matcher -> ImmutableLine.of(
-                        matcher.group("group"),
-                        matcher.group("artifact"),
-                        matcher.group("version"),
-                        Integer.parseInt(matcher.group("num")),
-                        matcher.group("hash")));
+        return stringStream.map(line -> LockFileParser.parseLine(line, lockfile));
     }
 
-    public void writeLocks(FullLockState fullLockState) {
+    /**
+     * Writes the lock state to disk, but only if it differs from what is already there, so that file watchers and
+     * tasks consuming the lock file are not disturbed by a no-op {@code --write-locks}. The new content is written to a
+     * temporary file next to the lock file and then moved into place, so concurrent readers never see a half-written
+     * file.
+     *
+     * @return whether the lock file was changed.
+     */
+    public boolean writeLocks(FullLockState fullLockState) {
         LockState lockState = LockStates.toLockState(fullLockState);
-        try (BufferedWriter writer =
-                Files.newBufferedWriter(lockfile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            writer.append(HEADER_COMMENT);
-            writer.newLine();
-
-            lockState.productionLinesByModuleIdentifier().values().forEach(line -> writeLine(line, writer));
-
-            if (!lockState.testLinesByModuleIdentifier().isEmpty()) {
-                writer.newLine();
-                writer.write(TEST_DEPENDENCIES_MARKER);
-                writer.newLine();
-                lockState.testLinesByModuleIdentifier().values().forEach(line -> writeLine(line, writer));
-            }
+        return writeLocks(
+                lockState.productionLinesByModuleIdentifier().values().stream(),
+                lockState.testLinesByModuleIdentifier().values().stream());
+    }
+
+    /**
+     * Like {@link #writeLocks(FullLockState)}, but writes each line as soon as it is consumed from its section, which
+     * must be in module order.
+     */
+    public boolean writeLocks(Stream<Line> productionLines, Stream<Line> testLines) {
+        try {
+            return writeLocks(realPathOf(lockfile), productionLines, testLines);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write lock file: " + lockfile, e);
         }
     }
 
-    private static void writeLine(Line line, BufferedWriter writer) {
+    private static boolean writeLocks(Path target, Stream<Line> productionLines, Stream<Line> testLines)
+            throws IOException {
+        Path tempFile = tempFileFor(target);
         try {
-            writer.append(line.stringRepresentation());
-            writer.newLine();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                    StandardCharsets.UTF_8))) {
+                writer.write(HEADER_COMMENT);
+                writer.write(NEWLINE);
+                writeSection(writer, productionLines.iterator());
+
+                Iterator<Line> testIterator = testLines.iterator();
+                if (testIterator.hasNext()) {
+                    writer.write(NEWLINE);
+                    writer.write(LockFileParser.TEST_DEPENDENCIES_MARKER);
+                    writer.write(NEWLINE);
+                    writeSection(writer, testIterator);
+                }
+            }
+
+            if (Files.isRegularFile(target) && hasSameContent(tempFile, target)) {
+                log.info("Lock file {} is already up to date", target);
+                return false;
+            }
+            if (Files.exists(target)) {
+                copyOwnerAndPermissions(target, tempFile);
+            }
+            moveAtomically(tempFile, target);
+            return true;
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("Failed to delete temporary lock file {}", tempFile, e);
+            }
+        }
+    }
+
+    /** Writes {@code lines}, checking they are in module order. */
+    private static void writeSection(Writer writer, Iterator<Line> lines) throws IOException {
+        Line previous = null;
+        while (lines.hasNext()) {
+            Line line = lines.next();
+            if (previous != null) {
+                int comparison = previous.group().compareTo(line.group());
+                if (comparison == 0) {
+                    comparison = previous.name().compareTo(line.name());
+                }
+                if (comparison >= 0) {
+                    throw new IllegalArgumentException(
+                            comparison == 0
+                                    ? "Multiple entries with the same module in lock state: " + previous + ", " + line
+                                    : "Lock state lines are not in module order: " + previous + ", " + line);
+                }
+            }
+            writeLine(writer, line);
+            previous = line;
+        }
+    }
+
+    /** Writes the same text as {@link Line#stringRepresentation()}, without creating an intermediate string. */
+    private static void writeLine(Writer writer, Line line) throws IOException {
+        writer.write(line.group());
+        writer.write(':');
+        writer.write(line.name());
+        writer.write(':');
+        writer.write(line.version());
+        writer.write(" (");
+        writer.write(Integer.toString(line.numDependents()));
+        writer.write(" constraints: ");
+        writer.write(line.dependentsHash());
+        writer.write(')');
+        writer.write(NEWLINE);
+    }
+
+    private static boolean hasSameContent(Path left, Path right) throws IOException {
+        if (Files.size(left) != Files.size(right)) {
+            return false;
+        }
+        try (InputStream leftStream = Files.newInputStream(left);
+                InputStream rightStream = Files.newInputStream(right)) {
+            byte[] leftBuffer = new byte[COMPARE_BUFFER_SIZE];
+            byte[] rightBuffer = new byte[COMPARE_BUFFER_SIZE];
+            while (true) {
+                int read = leftStream.readNBytes(leftBuffer, 0, COMPARE_BUFFER_SIZE);
+                if (read == 0) {
+                    return rightStream.read() == -1;
+                }
+                if (rightStream.readNBytes(rightBuffer, 0, read) != read
+                        || !Arrays.equals(leftBuffer, 0, read, rightBuffer, 0, read)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * The lock file may be a symlink, e.g. to share it between checkouts. Moving a file onto the link would replace it,
+     * so the file it points at is written instead.
+     */
+    private static Path realPathOf(Path file) throws IOException {
+        if (!Files.isSymbolicLink(file)) {
+            return file;
+        }
+        if (Files.exists(file)) {
+            return file.toRealPath();
+        }
+        // Writing through a dangling link creates the file it points at
+        return realPathOf(file.resolveSibling(Files.readSymbolicLink(file)));
+    }
+
+    /** The move replaces the existing file, so whatever made it accessible has to be carried over to the new one. */
+    private static void copyOwnerAndPermissions(Path existing, Path replacement) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(existing, PosixFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        PosixFileAttributes attributes = view.readAttributes();
+        Files.setPosixFilePermissions(replacement, attributes.permissions());
+        try {
+            PosixFileAttributeView replacementView =
+                    Files.getFileAttributeView(replacement, PosixFileAttributeView.class);
+            replacementView.setGroup(attributes.group());
+            replacementView.setOwner(attributes.owner());
         } catch (IOException e) {
-            throw new RuntimeException("Failed writing line", e);
+            // Only privileged users may hand a file over to someone else, so keep the writer as its owner instead
+            log.debug("Could not copy owner and group of {}", existing, e);
+        }
+    }
+
+    /** Not using Files.createTempFile, as that would create the file (and hence the target) with 0600 permissions. */
+    private static Path tempFileFor(Path target) {
+        return target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.debug("Atomic move not supported, falling back to a regular move for {}", target, e);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.palantir.gradle.versions.lockstate.LockStates;
+import java.util.Arrays;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+
+/**
+ * Sort keys for the components of a {@link ResolutionGraph} as dependents, computed once per component. Components are
+ * ranked in {@link GradleComparators#COMPONENT_IDENTIFIER_COMPARATOR} order, with identifiers that compare equal
+ * sharing a rank, so the dependents of a component can be sorted as primitive keys instead of comparing identifiers
+ * (and building their display names) over and over again.
+ */
+final class DependentKeys {
+    private final int[] ranks;
+    /** How each component is listed in the lock state's dependents, or {@code null} for projects. */
+    private final String[] names;
+
+    private DependentKeys(int[] ranks, String[] names) {
+        this.ranks = ranks;
+        this.names = names;
+    }
+
+    static DependentKeys compute(ResolutionGraph graph) {
+        Key[] keys = new Key[graph.size()];
+        String[] names = new String[graph.size()];
+        for (int component = 0; component < graph.size(); component++) {
+            ComponentIdentifier id = graph.component(component).getId();
+            keys[component] = new Key(component, id);
+            if (!(id instanceof ProjectComponentIdentifier)) {
+                names[component] = LockStates.formatComponentIdentifier(id);
+            }
+        }
+        Arrays.sort(keys);
+
+        int[] ranks = new int[graph.size()];
+        int rank = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0 && keys[i - 1].compareTo(keys[i]) != 0) {
+                rank++;
+            }
+            ranks[keys[i].component] = rank;
+        }
+        return new DependentKeys(ranks, names);
+    }
+
+    int rank(int component) {
+        return ranks[component];
+    }
+
+    boolean isProject(int component) {
+        return names[component] == null;
+    }
+
+    String name(int component) {
+        return names[component];
+    }
+
+    /** The fields that {@link GradleComparators#COMPONENT_IDENTIFIER_COMPARATOR} compares, fetched only once. */
+    private static final class Key implements Comparable<Key> {
+        private final int component;
+        /** The group and name are {@code null} unless the component is a module. */
+        private final String group;
+
+        private final String name;
+        private final String displayName;
+
+        Key(int component, ComponentIdentifier id) {
+            this.component = component;
+            if (id instanceof ModuleComponentIdentifier) {
+                ModuleIdentifier module = ((ModuleComponentIdentifier) id).getModuleIdentifier();
+                this.group = module.getGroup();
+                this.name = module.getName();
+            } else {
+                this.group = null;
+                this.name = null;
+            }
+            this.displayName = id.getDisplayName();
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if ((group == null) != (other.group == null)) {
+                return group == null ? -1 : 1;
+            }
+            if (group != null) {
+                int comparison = group.compareTo(other.group);
+                if (comparison == 0) {
+                    comparison = name.compareTo(other.name);
+                }
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return displayName.compareTo(other.displayName);
+        }
+    }
+}
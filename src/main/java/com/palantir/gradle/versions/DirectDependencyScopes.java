@@ -21,15 +21,17 @@ import com.palantir.gradle.versions.VersionsLockPlugin.GcvScope;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
 import org.gradle.api.artifacts.ModuleIdentifier;
 
-/** Keeps track of the {@link GcvScope} of direct dependencies. */
+/**
+ * Keeps track of the {@link GcvScope} of direct dependencies. The scopes that each module was recorded with are kept as
+ * a {@link ScopeMasks mask}, so recording them doesn't allocate.
+ */
 public final class DirectDependencyScopes {
-    private final ImmutableMap<ModuleIdentifier, GcvScope> map;
+    private final ImmutableMap<ModuleIdentifier, Byte> masks;
 
-    private DirectDependencyScopes(Map<ModuleIdentifier, GcvScope> map) {
-        this.map = ImmutableMap.copyOf(map);
+    private DirectDependencyScopes(Map<ModuleIdentifier, Byte> masks) {
+        this.masks = ImmutableMap.copyOf(masks);
     }
 
     /**
@@ -37,24 +39,25 @@ public final class DirectDependencyScopes {
      * configurations in this build. Otherwise, returns {@link Optional#empty()}.
      */
     public Optional<GcvScope> getScopeFor(ModuleIdentifier moduleIdentifier) {
-        return Optional.ofNullable(map.get(moduleIdentifier));
+        return Optional.ofNullable(ScopeMasks.smallest(scopeMaskFor(moduleIdentifier)));
+    }
+
+    /** Like {@link #getScopeFor}, but returns all recorded scopes, or {@link ScopeMasks#NONE}. */
+    byte scopeMaskFor(ModuleIdentifier moduleIdentifier) {
+        Byte mask = masks.get(moduleIdentifier);
+        return mask == null ? ScopeMasks.NONE : mask;
     }
 
     public static final class Builder {
-        private final Map<ModuleIdentifier, GcvScope> map = new HashMap<>();
+        private final Map<ModuleIdentifier, Byte> masks = new HashMap<>();
 
         public DirectDependencyScopes build() {
-            return new DirectDependencyScopes(map);
+            return new DirectDependencyScopes(masks);
         }
 
         public void record(ModuleIdentifier module, GcvScope scope) {
-            map.compute(
-                    module,
-                    (_key, oldScope) -> oldScope != null
-                            ? Stream.of(oldScope, scope)
-                                    .min(VersionsLockPlugin.GCV_SCOPE_COMPARATOR)
-                                    .get()
-                            : scope);
+            // Boxed bytes are all cached, and the smallest scope is only picked on lookup
+            masks.merge(module, ScopeMasks.of(scope), (left, right) -> (byte) (left | right));
         }
     }
 }
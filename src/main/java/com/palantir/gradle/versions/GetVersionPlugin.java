@@ -24,6 +24,7 @@ import com.google.common.collect.Iterables;
 import groovy.lang.Closure;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
@@ -76,12 +77,18 @@ public final class GetVersionPlugin implements Plugin<Project> {
     }
 
     private static String getVersion(Project project, String group, String name, Configuration configuration) {
-        return getOptionalVersion(project, group, name, configuration)
-                .orElseThrow(() -> notFound(group, name, configuration));
+        Set<ResolvedComponentResult> components = resolvedComponents(project, group, name, configuration);
+        return findVersion(components, group, name, configuration)
+                .orElseThrow(() -> notFound(components, group, name, configuration));
     }
 
     static Optional<String> getOptionalVersion(
             Project project, String group, String name, Configuration configuration) {
+        return findVersion(resolvedComponents(project, group, name, configuration), group, name, configuration);
+    }
+
+    private static Set<ResolvedComponentResult> resolvedComponents(
+            Project project, String group, String name, Configuration configuration) {
         if (GradleWorkarounds.isConfiguring(project.getState())) {
             throw new GradleException(String.format(
                     "Not allowed to call gradle-consistent-versions's getVersion(\"%s\", \"%s\", "
@@ -89,13 +96,15 @@ public final class GetVersionPlugin implements Plugin<Project> {
                             + "at configuration time",
                     group, name, configuration.getName()));
         }
+        return configuration.getIncoming().getResolutionResult().getAllComponents();
+    }
 
-        List<ModuleVersionIdentifier> list =
-                configuration.getIncoming().getResolutionResult().getAllComponents().stream()
-                        .map(ResolvedComponentResult::getModuleVersion)
-                        .filter(item ->
-                                item.getGroup().equals(group) && item.getName().equals(name))
-                        .collect(toList());
+    private static Optional<String> findVersion(
+            Set<ResolvedComponentResult> components, String group, String name, Configuration configuration) {
+        List<ModuleVersionIdentifier> list = components.stream()
+                .map(ResolvedComponentResult::getModuleVersion)
+                .filter(item -> item.getGroup().equals(group) && item.getName().equals(name))
+                .collect(toList());
 
         if (list.isEmpty()) {
             return Optional.empty();
@@ -109,8 +118,9 @@ public final class GetVersionPlugin implements Plugin<Project> {
         return Optional.of(Iterables.getOnlyElement(list).getVersion());
     }
 
-    private static GradleException notFound(String group, String name, Configuration configuration) {
-        String actual = configuration.getIncoming().getResolutionResult().getAllComponents().stream()
+    private static GradleException notFound(
+            Set<ResolvedComponentResult> components, String group, String name, Configuration configuration) {
+        String actual = components.stream()
                 .map(ResolvedComponentResult::getModuleVersion)
                 .map(mvi -> String.format("\t- %s:%s:%s", mvi.getGroup(), mvi.getName(), mvi.getVersion()))
                 .collect(Collectors.joining("\n"));
@@ -16,10 +16,7 @@
 
 package com.palantir.gradle.versions;
 
-import com.google.common.collect.Comparators;
-import com.google.common.collect.Ordering;
 import java.util.Comparator;
-import java.util.Optional;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
@@ -28,19 +25,35 @@ public final class GradleComparators {
     private GradleComparators() {}
 
     public static final Comparator<ModuleIdentifier> MODULE_IDENTIFIER_COMPARATOR =
-            Comparator.comparing(ModuleIdentifier::getGroup).thenComparing(ModuleIdentifier::getName);
+            identityFirst(Comparator.comparing(ModuleIdentifier::getGroup).thenComparing(ModuleIdentifier::getName));
 
     /**
      * Compare {@link ModuleComponentIdentifier} using {@link #MODULE_IDENTIFIER_COMPARATOR}, but all other identifiers
      * using {@link ComponentIdentifier#getDisplayName()}.
      */
-    public static final Comparator<ComponentIdentifier> COMPONENT_IDENTIFIER_COMPARATOR = Comparator.comparing(
-                    (ComponentIdentifier id) -> tryCast(ModuleComponentIdentifier.class, id),
-                    Comparators.emptiesFirst(Ordering.from(MODULE_IDENTIFIER_COMPARATOR)
-                            .onResultOf(ModuleComponentIdentifier::getModuleIdentifier)))
-            .thenComparing(ComponentIdentifier::getDisplayName);
+    public static final Comparator<ComponentIdentifier> COMPONENT_IDENTIFIER_COMPARATOR =
+            identityFirst(GradleComparators::compareComponentIdentifiers);
 
-    static <A, T> Optional<T> tryCast(Class<T> to, A value) {
-        return to.isInstance(value) ? Optional.of(to.cast(value)) : Optional.empty();
+    /** Skips the comparison entirely for the same (e.g. interned) instance. */
+    private static <T> Comparator<T> identityFirst(Comparator<T> comparator) {
+        return (left, right) -> left == right ? 0 : comparator.compare(left, right);
+    }
+
+    /** Identifiers of anything but a module component come first. */
+    private static int compareComponentIdentifiers(ComponentIdentifier left, ComponentIdentifier right) {
+        boolean leftIsModule = left instanceof ModuleComponentIdentifier;
+        boolean rightIsModule = right instanceof ModuleComponentIdentifier;
+        if (leftIsModule != rightIsModule) {
+            return leftIsModule ? 1 : -1;
+        }
+        if (leftIsModule) {
+            int comparison = MODULE_IDENTIFIER_COMPARATOR.compare(
+                    ((ModuleComponentIdentifier) left).getModuleIdentifier(),
+                    ((ModuleComponentIdentifier) right).getModuleIdentifier());
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return left.getDisplayName().compareTo(right.getDisplayName());
     }
 }
@@ -0,0 +1,277 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.palantir.gradle.versions.lockstate.Line;
+import com.palantir.gradle.versions.lockstate.LineTable;
+import com.palantir.gradle.versions.lockstate.LockState;
+import java.nio.file.Path;
+
+/**
+ * Single-pass, character level scanner for the contents of a {@code versions.lock} file.
+ *
+ * <p>Accepts exactly the lines that {@code group:artifact:version (num constraints: hash)} used to match as a regex,
+ * i.e. {@code [^(:]+:[^(:]+:[^(:\s]+\s+\(\d+ constraints: \w+\)}, and splits the file into its production and test
+ * sections without materializing the list of lines.
+ */
+final class LockFileParser {
+    static final String TEST_DEPENDENCIES_MARKER = "[Test dependencies]";
+    private static final String CONSTRAINTS_INFIX = " constraints: ";
+
+    private LockFileParser() {}
+
+    /**
+     * Parses the lock file. Comment lines are ignored, and the line immediately preceding the
+     * {@link #TEST_DEPENDENCIES_MARKER} (normally blank) is skipped.
+     */
+    static LockState parse(String content, Path lockfile) {
+        Sections sections = split(content);
+        LineTable production = sections.production(lockfile);
+        LineTable test = sections.test(lockfile);
+        return LockState.lazy(() -> production, () -> test);
+    }
+
+    /**
+     * Splits the lock file at the {@link #TEST_DEPENDENCIES_MARKER} without parsing either section, so that consumers
+     * of only the production section never pay for the (often larger) test section.
+     */
+    static Sections split(String content) {
+        int length = content.length();
+        int markerStart = findTestDependenciesMarker(content);
+        if (markerStart < 0) {
+            return new Sections(content, length, false, length);
+        }
+        return new Sections(
+                content, markerStart, true, nextLineStart(content, lineEnd(content, markerStart, length), length));
+    }
+
+    /** Returns the start of the first line that is exactly {@link #TEST_DEPENDENCIES_MARKER}, or {@code -1}. */
+    private static int findTestDependenciesMarker(String content) {
+        int length = content.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineEnd(content, lineStart, length);
+            if (isTestDependenciesMarker(content, lineStart, lineEnd)) {
+                return lineStart;
+            }
+            lineStart = nextLineStart(content, lineEnd, length);
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the non-comment lines in {@code [start, end)}. If {@code dropLastLine} is set, the last of them is
+     * skipped, as it separates the production section from the marker.
+     */
+    private static LineTable parseSection(String content, int start, int end, boolean dropLastLine, Path lockfile) {
+        LineTable.Builder lines = LineTable.builder();
+        // Lines are parsed one line late, so the separator line before the marker can be dropped.
+        int pendingStart = -1;
+        int pendingEnd = -1;
+
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineEnd(content, lineStart, end);
+            if (!isComment(content, lineStart, lineEnd)) {
+                if (pendingStart >= 0) {
+                    parseLine(content, pendingStart, pendingEnd, lockfile, lines);
+                }
+                pendingStart = lineStart;
+                pendingEnd = lineEnd;
+            }
+            lineStart = nextLineStart(content, lineEnd, end);
+        }
+
+        if (pendingStart >= 0 && !dropLastLine) {
+            parseLine(content, pendingStart, pendingEnd, lockfile, lines);
+        }
+        return lines.build();
+    }
+
+    /** Returns the index of the line terminator of the line starting at {@code lineStart}, or {@code end}. */
+    private static int lineEnd(String content, int lineStart, int end) {
+        int pos = lineStart;
+        while (pos < end && content.charAt(pos) != '\n' && content.charAt(pos) != '\r') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /** Skips the {@code \n}, {@code \r} or {@code \r\n} line terminator at {@code lineEnd}. */
+    private static int nextLineStart(String content, int lineEnd, int end) {
+        int next = lineEnd;
+        if (next < end && content.charAt(next) == '\r') {
+            next++;
+        }
+        if (next < end && content.charAt(next) == '\n') {
+            next++;
+        }
+        return next;
+    }
+
+    /** Parses a single {@code group:artifact:version (num constraints: hash)} line. */
+    static Line parseLine(String line, Path lockfile) {
+        LineTable.Builder builder = LineTable.builder();
+        parseLine(line, 0, line.length(), lockfile, builder);
+        return builder.build().line(0);
+    }
+
+    private static void parseLine(String content, int start, int end, Path lockfile, LineTable.Builder lines) {
+        Validators.checkResultOrThrow(
+                tryParseLine(content, start, end, lines),
+                String.format(
+                        "Found unparseable line in dependency lock file '%s': %s",
+                        lockfile, content.substring(start, end)),
+                lockfile);
+    }
+
+    /** Adds the line in {@code [start, end)} to {@code lines}, or returns {@code false} if it is not a lock line. */
+    @SuppressWarnings("CyclomaticComplexity")
+    private static boolean tryParseLine(String content, int start, int end, LineTable.Builder lines) {
+        // group: [^(:]+
+        int groupEnd = scanIdentifierPart(content, start, end);
+        if (groupEnd == start || groupEnd == end || content.charAt(groupEnd) != ':') {
+            return false;
+        }
+
+        // artifact: [^(:]+
+        int artifactStart = groupEnd + 1;
+        int artifactEnd = scanIdentifierPart(content, artifactStart, end);
+        if (artifactEnd == artifactStart || artifactEnd == end || content.charAt(artifactEnd) != ':') {
+            return false;
+        }
+
+        // version: [^(:\s]+
+        int versionStart = artifactEnd + 1;
+        int versionEnd = versionStart;
+        while (versionEnd < end) {
+            char ch = content.charAt(versionEnd);
+            if (ch == '(' || ch == ':' || isRegexWhitespace(ch)) {
+                break;
+            }
+            versionEnd++;
+        }
+        if (versionEnd == versionStart) {
+            return false;
+        }
+
+        // \s+\(
+        int pos = versionEnd;
+        while (pos < end && isRegexWhitespace(content.charAt(pos))) {
+            pos++;
+        }
+        if (pos == versionEnd || pos == end || content.charAt(pos) != '(') {
+            return false;
+        }
+        pos++;
+
+        // \d+
+        int numStart = pos;
+        while (pos < end && isAsciiDigit(content.charAt(pos))) {
+            pos++;
+        }
+        if (pos == numStart || !content.startsWith(CONSTRAINTS_INFIX, pos)) {
+            return false;
+        }
+        int numEnd = pos;
+        pos += CONSTRAINTS_INFIX.length();
+
+        // \w+\)
+        int hashStart = pos;
+        while (pos < end && isRegexWordChar(content.charAt(pos))) {
+            pos++;
+        }
+        if (pos == hashStart || pos != end - 1 || content.charAt(pos) != ')') {
+            return false;
+        }
+
+        lines.add(
+                content.substring(start, groupEnd),
+                content.substring(artifactStart, artifactEnd),
+                content.substring(versionStart, versionEnd),
+                Integer.parseInt(content, numStart, numEnd, 10),
+                content.substring(hashStart, pos));
+        return true;
+    }
+
+    /** Returns the index of the first {@code ':'} or {@code '('}, or {@code end} if there is none. */
+    private static int scanIdentifierPart(String content, int start, int end) {
+        int pos = start;
+        while (pos < end) {
+            char ch = content.charAt(pos);
+            if (ch == ':' || ch == '(') {
+                return pos;
+            }
+            pos++;
+        }
+        return end;
+    }
+
+    /** Equivalent to {@code line.trim().startsWith("#")}. */
+    private static boolean isComment(String content, int start, int end) {
+        int pos = start;
+        while (pos < end && content.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos < end && content.charAt(pos) == '#';
+    }
+
+    private static boolean isTestDependenciesMarker(String content, int start, int end) {
+        return end - start == TEST_DEPENDENCIES_MARKER.length() && content.startsWith(TEST_DEPENDENCIES_MARKER, start);
+    }
+
+    /** Same set of characters as {@code \s} in {@link java.util.regex.Pattern}. */
+    private static boolean isRegexWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean isAsciiDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    /** Same set of characters as {@code \w} in {@link java.util.regex.Pattern}. */
+    private static boolean isRegexWordChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || isAsciiDigit(ch) || ch == '_';
+    }
+
+    /** The content of a lock file, split at the {@link #TEST_DEPENDENCIES_MARKER}. */
+    static final class Sections {
+        private final String content;
+        private final int productionEnd;
+        private final boolean hasTestSection;
+        private final int testStart;
+
+        private Sections(String content, int productionEnd, boolean hasTestSection, int testStart) {
+            this.content = content;
+            this.productionEnd = productionEnd;
+            this.hasTestSection = hasTestSection;
+            this.testStart = testStart;
+        }
+
+        /** Parses the production section, reporting unparseable lines against {@code lockfile}. */
+        LineTable production(Path lockfile) {
+            return parseSection(content, 0, productionEnd, hasTestSection, lockfile);
+        }
+
+        /** Parses the test section, reporting unparseable lines against {@code lockfile}. */
+        LineTable test(Path lockfile) {
+            return hasTestSection
+                    ? parseSection(content, testStart, content.length(), false, lockfile)
+                    : LineTable.empty();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.palantir.gradle.versions.VersionsLockPlugin.GcvScope;
+import com.palantir.gradle.versions.internal.MyModuleVersionIdentifier;
+import com.palantir.gradle.versions.internal.ParallelIndices;
+import com.palantir.gradle.versions.lockstate.Dependents;
+import com.palantir.gradle.versions.lockstate.FullLockState;
+import com.palantir.gradle.versions.lockstate.Line;
+import com.palantir.gradle.versions.lockstate.LockStates;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentSelector;
+
+/**
+ * The module components of a resolved {@code unifiedClasspath} along with their {@link GcvScope scopes}, from which
+ * either the whole {@link FullLockState} is computed, or the lines of the lock file are streamed for
+ * {@code --write-locks}. Streaming only ever holds the {@link Dependents} of one batch of components, rather than
+ * those of the whole graph.
+ */
+final class LockedComponents {
+    /** Graphs (or batches) with at least this many components have their dependents extracted in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1000;
+
+    /** Number of components whose lines are computed at once when streaming them. */
+    private static final int BATCH_SIZE = PARALLEL_THRESHOLD;
+
+    private final ResolutionGraph graph;
+    /** {@link ScopeMasks Mask} of the scope of each component. */
+    private final byte[] scopes;
+
+    private final DependentKeys keys;
+
+    private LockedComponents(ResolutionGraph graph, byte[] scopes, DependentKeys keys) {
+        this.graph = graph;
+        this.scopes = scopes;
+        this.keys = keys;
+    }
+
+    /**
+     * Assumes the resolution result succeeded, that is, {@code failIfAnyDependenciesUnresolved} was run and didn't
+     * throw.
+     *
+     * @param directDependencyScopes the scope that we've attributed to each {@link ModuleIdentifier external module}
+     *     that was being directly depend on (from some locked configuration).
+     */
+    static LockedComponents compute(ResolutionGraph graph, DirectDependencyScopes directDependencyScopes) {
+        byte[] scopes = ComponentScopes.compute(graph, directDependencyScopes);
+        for (int index = 0; index < graph.size(); index++) {
+            if (!graph.isModule(index)) {
+                continue;
+            }
+            if (scopes[index] == ScopeMasks.NONE) {
+                throw new RuntimeException("Couldn't determine scope for dependency: " + graph.component(index));
+            }
+            checkDependentsRequestedModules(graph, index);
+        }
+        return new LockedComponents(graph, scopes, DependentKeys.compute(graph));
+    }
+
+    FullLockState fullLockState() {
+        int[] modules = IntStream.range(0, graph.size()).filter(graph::isModule).toArray();
+        Dependents[] dependents = extractDependents(modules);
+
+        FullLockState.Builder builder = FullLockState.builder();
+        for (int i = 0; i < modules.length; i++) {
+            int index = modules[i];
+            ModuleVersionIdentifier moduleVersion = graph.component(index).getModuleVersion();
+            GcvScope scope = ScopeMasks.smallest(scopes[index]);
+            switch (scope) {
+                case PRODUCTION:
+                    builder.putProductionDeps(MyModuleVersionIdentifier.copyOf(moduleVersion), dependents[i]);
+                    continue;
+                case TEST:
+                    builder.putTestDeps(MyModuleVersionIdentifier.copyOf(moduleVersion), dependents[i]);
+                    continue;
+            }
+            throw new RuntimeException(String.format("Unexpected scope for component %s: %s", moduleVersion, scope));
+        }
+        return builder.build();
+    }
+
+    /**
+     * The lock file lines of the components in {@code scope}, in module order. Lines are computed lazily, a batch at a
+     * time, as the stream is consumed.
+     */
+    Stream<Line> lines(GcvScope scope) {
+        int[] components = inModuleOrder(ScopeMasks.of(scope));
+        return IntStream.range(0, (components.length + BATCH_SIZE - 1) / BATCH_SIZE)
+                .mapToObj(batch -> Arrays.copyOfRange(
+                        components, batch * BATCH_SIZE, Math.min(components.length, (batch + 1) * BATCH_SIZE)))
+                .flatMap(this::computeLines);
+    }
+
+    private Stream<Line> computeLines(int[] batch) {
+        Dependents[] dependents = extractDependents(batch);
+        Map<MyModuleVersionIdentifier, Dependents> deps = new LinkedHashMap<>();
+        for (int i = 0; i < batch.length; i++) {
+            deps.put(MyModuleVersionIdentifier.copyOf(graph.component(batch[i]).getModuleVersion()), dependents[i]);
+        }
+        return LockStates.computeLines(deps);
+    }
+
+    /** The dependents of each of {@code components}, each extracted independently into its own slot. */
+    private Dependents[] extractDependents(int[] components) {
+        Dependents[] dependents = new Dependents[components.length];
+        ParallelIndices.forEach(
+                components.length, PARALLEL_THRESHOLD, i -> dependents[i] = extractDependents(components[i]));
+        return dependents;
+    }
+
+    /**
+     * Module components rank in the same order as {@link GradleComparators#MODULE_IDENTIFIER_COMPARATOR}, so sorting
+     * them as packed {@code (rank, component)} keys puts them in the order of the lock file.
+     */
+    private int[] inModuleOrder(byte scope) {
+        return IntStream.range(0, graph.size())
+                .filter(index -> graph.isModule(index) && scopes[index] == scope)
+                .mapToLong(index -> ((long) keys.rank(index) << Integer.SIZE) | index)
+                .sorted()
+                .mapToInt(packed -> (int) packed)
+                .toArray();
+    }
+
+    /**
+     * Lists the dependents of {@code component} in {@link GradleComparators#COMPONENT_IDENTIFIER_COMPARATOR} order,
+     * each with its version constraints ordered and deduplicated by {@link VersionConstraint#toString()}. The
+     * dependent edges are sorted as packed {@code (rank of the dependent, edge)} keys. Only reads plain values, so it
+     * can run on any thread.
+     */
+    private Dependents extractDependents(int component) {
+        int start = graph.dependentsStart(component);
+        long[] sorted = new long[graph.dependentsEnd(component) - start];
+        for (int i = 0; i < sorted.length; i++) {
+            int edge = graph.dependentEdge(start + i);
+            sorted[i] = ((long) keys.rank(graph.source(edge)) << Integer.SIZE) | edge;
+        }
+        Arrays.sort(sorted);
+
+        Dependents.Builder builder = Dependents.builder();
+        Set<String> constraints = new TreeSet<>();
+        for (int i = 0; i < sorted.length; ) {
+            int dependent = graph.source((int) sorted[i]);
+            long rank = sorted[i] >>> Integer.SIZE;
+            constraints.clear();
+            for (; i < sorted.length && sorted[i] >>> Integer.SIZE == rank; i++) {
+                constraints.add(graph.requestedVersion((int) sorted[i]));
+            }
+            if (keys.isProject(dependent)) {
+                builder.addProjectConstraints(constraints);
+            } else {
+                builder.addConstraints(keys.name(dependent), constraints);
+            }
+        }
+        return builder.build();
+    }
+
+    /** Every dependent of a module must have requested a module, as only those have a version to lock. */
+    private static void checkDependentsRequestedModules(ResolutionGraph graph, int component) {
+        for (int i = graph.dependentsStart(component); i < graph.dependentsEnd(component); i++) {
+            int edge = graph.dependentEdge(i);
+            if (!graph.isModuleSelector(edge)) {
+                ComponentSelector requested = graph.dependency(edge).getRequested();
+                throw new RuntimeException(String.format(
+                        "Expecting a ModuleComponentSelector but found a %s: %s", requested.getClass(), requested));
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.palantir.gradle.versions.lockstate.LockState;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.gradle.api.GradleException;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Cache of parsed {@code versions.lock} and {@code versions.props} files, so that every reader in a build (locking
+ * constraints, publishable constraints, {@code verifyLocks}, {@code why}, {@code checkOverbroadConstraints}, the
+ * versions props constraints) shares a single immutable {@link LockState} or {@link VersionsProps}.
+ *
+ * <p>Entries are keyed by path, and revalidated against the file's size and modification time. If those changed, the
+ * file is read again, and only parsed if its content digest changed too. Readers at configuration time pass in the
+ * content they read through {@link ProviderFactory#fileContents}, which makes the file an input of the configuration
+ * cache, and those entries are revalidated against the digest alone. All state lives in this service, so nothing is
+ * shared between builds. Anything that rewrites a file must call {@link #invalidate(Path)}, because the
+ * modification time may not have a fine enough granularity to notice.
+ *
+ * <p>The two sections of a lock file are cached separately, and each is only parsed the first time it is accessed.
+ */
+public abstract class ParsedFilesCache implements BuildService<BuildServiceParameters.None> {
+    private static final Logger log = Logging.getLogger(ParsedFilesCache.class);
+    private static final String NAME = "gcvParsedFilesCache";
+
+    private final Map<Path, CachedFile<LockState>> lockStates = new ConcurrentHashMap<>();
+    private final Map<Path, CachedFile<VersionsProps>> versionsProps = new ConcurrentHashMap<>();
+
+    static Provider<ParsedFilesCache> register(Gradle gradle) {
+        return gradle.getSharedServices().registerIfAbsent(NAME, ParsedFilesCache.class, _spec -> {});
+    }
+
+    /** Returns the parsed {@link LockState} of {@code lockfile}, parsing it only if it changed since the last call. */
+    public final LockState readLocks(Path lockfile) {
+        Path key = lockfile.toAbsolutePath().normalize();
+        return lockStates.compute(
+                        key,
+                        (_path, cached) -> refresh(
+                                key,
+                                cached,
+                                content -> parseLocks(key, content),
+                                e -> new GradleException(
+                                        String.format(
+                                                "Couldn't load versions from palantir dependency lock file: %s", key),
+                                        e)))
+                .value;
+    }
+
+    /**
+     * Returns the parsed {@link LockState} of {@code lockfile}, whose {@code content} has already been read, e.g.
+     * through {@link ProviderFactory#fileContents} so that the file is an input of the configuration cache. It is only
+     * parsed if the content changed since the last call.
+     */
+    public final LockState readLocks(Path lockfile, byte[] content) {
+        Path key = lockfile.toAbsolutePath().normalize();
+        return lockStates.compute(
+                        key,
+                        (_path, cached) -> refresh(
+                                cached,
+                                content,
+                                bytes -> parseLocks(key, bytes),
+                                e -> new GradleException(
+                                        String.format(
+                                                "Couldn't load versions from palantir dependency lock file: %s", key),
+                                        e)))
+                .value;
+    }
+
+    /**
+     * Returns the parsed {@link VersionsProps} of {@code propsFile}, parsing it only if it changed since the last call.
+     */
+    public final VersionsProps readVersionsProps(Path propsFile) {
+        Path key = propsFile.toAbsolutePath().normalize();
+        return versionsProps.compute(
+                        key,
+                        (_path, cached) -> refresh(
+                                key,
+                                cached,
+                                content -> parseVersionsProps(key, content),
+                                e -> new RuntimeException("Error reading " + key, e)))
+                .value;
+    }
+
+    /** Like {@link #readLocks(Path, byte[])}, for the already read {@code content} of {@code propsFile}. */
+    public final VersionsProps readVersionsProps(Path propsFile, byte[] content) {
+        Path key = propsFile.toAbsolutePath().normalize();
+        return versionsProps.compute(
+                        key,
+                        (_path, cached) -> refresh(
+                                cached,
+                                content,
+                                bytes -> parseVersionsProps(key, bytes),
+                                e -> new RuntimeException("Error reading " + key, e)))
+                .value;
+    }
+
+    /** Forget the parsed state of {@code file}, e.g. because it has just been rewritten. */
+    public final void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        lockStates.remove(key);
+        versionsProps.remove(key);
+    }
+
+    static String decode(byte[] content) throws CharacterCodingException {
+        return StandardCharsets.UTF_8
+                .newDecoder()
+                .decode(ByteBuffer.wrap(content))
+                .toString();
+    }
+
+    private static <T> CachedFile<T> refresh(
+            Path file, CachedFile<T> cached, Parser<T> parser, Function<IOException, RuntimeException> onError) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (cached != null
+                    && cached.lastModified != null
+                    && cached.size == attributes.size()
+                    && cached.lastModified.equals(attributes.lastModifiedTime())) {
+                return cached;
+            }
+
+            byte[] content = Files.readAllBytes(file);
+            HashCode digest = Hashing.sha256().hashBytes(content);
+            if (cached != null && cached.digest.equals(digest)) {
+                log.debug("{} was touched but its content is unchanged", file);
+                return new CachedFile<>(attributes, digest, cached.value);
+            }
+
+            log.debug("Reading {}", file);
+            return new CachedFile<>(attributes, digest, parser.parse(content));
+        } catch (IOException e) {
+            throw onError.apply(e);
+        }
+    }
+
+    /** Entries from content that was read elsewhere can only be revalidated against their digest. */
+    private static <T> CachedFile<T> refresh(
+            CachedFile<T> cached, byte[] content, Parser<T> parser, Function<IOException, RuntimeException> onError) {
+        HashCode digest = Hashing.sha256().hashBytes(content);
+        if (cached != null && cached.digest.equals(digest)) {
+            return cached;
+        }
+        try {
+            return new CachedFile<>(null, digest, parser.parse(content));
+        } catch (IOException e) {
+            throw onError.apply(e);
+        }
+    }
+
+    /** Lock states refer to the {@code lockfile} of this build until their sections are parsed. */
+    private static LockState parseLocks(Path lockfile, byte[] content) throws IOException {
+        LockFileParser.Sections sections = LockFileParser.split(decode(content));
+        return LockState.lazy(() -> sections.production(lockfile), () -> sections.test(lockfile));
+    }
+
+    private static VersionsProps parseVersionsProps(Path propsFile, byte[] content) throws IOException {
+        return VersionsProps.fromLines(decode(content).lines().collect(Collectors.toList()), propsFile);
+    }
+
+    private interface Parser<T> {
+        T parse(byte[] content) throws IOException;
+    }
+
+    private static final class CachedFile<T> {
+        private final long size;
+        /** {@code null} if the content wasn't read by this cache, so the attributes it had are unknown. */
+        private final FileTime lastModified;
+
+        private final HashCode digest;
+        private final T value;
+
+        CachedFile(BasicFileAttributes attributes, HashCode digest, T value) {
+            this.size = attributes == null ? -1 : attributes.size();
+            this.lastModified = attributes == null ? null : attributes.lastModifiedTime();
+            this.digest = digest;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.google.common.primitives.ImmutableIntArray;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
+
+/**
+ * Snapshot of a resolved dependency graph, in which components are numbered densely and resolved dependencies (edges)
+ * are stored in compressed sparse row arrays, both forwards ({@link ResolvedComponentResult#getDependencies()}) and in
+ * reverse ({@link ResolvedComponentResult#getDependents()}).
+ *
+ * <p>The snapshot is taken in a single walk of Gradle's object graph from the root component, which also collects the
+ * unresolved dependencies. After that, traversals only need array accesses and a {@link BitSet} of visited components,
+ * rather than hashing {@link ResolvedDependencyResult}s. The versions requested by each edge are copied as well, so
+ * that work on other threads never needs to call into Gradle's (not thread safe) results.
+ */
+final class ResolutionGraph {
+    private static final byte CONSTRAINT = 1;
+    private static final byte MODULE_SELECTOR = 1 << 1;
+    private static final byte FROM_PROJECT = 1 << 2;
+
+    private final ResolvedComponentResult[] components;
+    private final BitSet modules;
+
+    private final ResolvedDependencyResult[] edges;
+    private final int[] sources;
+    private final int[] targets;
+    private final byte[] flags;
+    /** The {@link VersionConstraint#toString() version} each edge requested, if it requested a module. */
+    private final String[] requestedVersions;
+
+    /** The dependencies of component {@code i} are the edges {@code dependencyOffsets[i] <= edge < [i + 1]}. */
+    private final int[] dependencyOffsets;
+    /** Edges grouped by target, those of component {@code i} starting at {@code dependentOffsets[i]}. */
+    private final int[] dependentOffsets;
+
+    private final int[] dependentEdges;
+
+    private final List<UnresolvedDependencyResult> unresolved;
+
+    private ResolutionGraph(
+            List<ResolvedComponentResult> componentList,
+            List<ResolvedDependencyResult> edgeList,
+            ImmutableIntArray edgeSources,
+            ImmutableIntArray edgeTargets,
+            List<UnresolvedDependencyResult> unresolved) {
+        int numComponents = componentList.size();
+        int numEdges = edgeList.size();
+        this.components = componentList.toArray(new ResolvedComponentResult[0]);
+        this.modules = new BitSet(numComponents);
+        for (int component = 0; component < numComponents; component++) {
+            if (components[component].getId() instanceof ModuleComponentIdentifier) {
+                modules.set(component);
+            }
+        }
+        this.unresolved = Collections.unmodifiableList(unresolved);
+
+        // Edges are discovered interleaved with those of their targets, so sort them (stably) by source
+        this.dependencyOffsets = offsets(edgeSources, numComponents);
+        this.edges = new ResolvedDependencyResult[numEdges];
+        this.sources = new int[numEdges];
+        this.targets = new int[numEdges];
+        this.flags = new byte[numEdges];
+        this.requestedVersions = new String[numEdges];
+        Map<String, String> distinctVersions = new HashMap<>();
+        int[] nextDependency = Arrays.copyOf(dependencyOffsets, numComponents);
+        for (int discovered = 0; discovered < numEdges; discovered++) {
+            int source = edgeSources.get(discovered);
+            int edge = nextDependency[source]++;
+            ResolvedDependencyResult dependency = edgeList.get(discovered);
+            edges[edge] = dependency;
+            sources[edge] = source;
+            targets[edge] = edgeTargets.get(discovered);
+            ComponentSelector requested = dependency.getRequested();
+            flags[edge] = (byte) ((dependency.isConstraint() ? CONSTRAINT : 0)
+                    | (requested instanceof ModuleComponentSelector ? MODULE_SELECTOR : 0)
+                    | (components[source].getId() instanceof ProjectComponentIdentifier ? FROM_PROJECT : 0));
+            if (requested instanceof ModuleComponentSelector) {
+                String version = ((ModuleComponentSelector) requested)
+                        .getVersionConstraint()
+                        .toString();
+                requestedVersions[edge] = distinctVersions.computeIfAbsent(version, Function.identity());
+            }
+        }
+
+        this.dependentOffsets = offsets(edgeTargets, numComponents);
+        this.dependentEdges = new int[numEdges];
+        int[] nextDependent = Arrays.copyOf(dependentOffsets, numComponents);
+        for (int edge = 0; edge < numEdges; edge++) {
+            dependentEdges[nextDependent[targets[edge]]++] = edge;
+        }
+    }
+
+    /**
+     * Snapshots the graph reachable from {@code root}. Components and unresolved dependencies are visited in the same
+     * depth first order as {@link org.gradle.api.artifacts.result.ResolutionResult#getAllComponents()} and
+     * {@link org.gradle.api.artifacts.result.ResolutionResult#getAllDependencies()}, but without recursion.
+     */
+    static ResolutionGraph walk(ResolvedComponentResult root) {
+        Map<ResolvedComponentResult, Integer> indices = new HashMap<>();
+        List<ResolvedComponentResult> components = new ArrayList<>();
+        List<ResolvedDependencyResult> edges = new ArrayList<>();
+        ImmutableIntArray.Builder edgeSources = ImmutableIntArray.builder();
+        ImmutableIntArray.Builder edgeTargets = ImmutableIntArray.builder();
+        List<UnresolvedDependencyResult> unresolved = new ArrayList<>();
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        indices.put(root, 0);
+        components.add(root);
+        stack.push(new Frame(0, root));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.dependencies.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            DependencyResult dependency = frame.dependencies.next();
+            if (dependency instanceof UnresolvedDependencyResult) {
+                unresolved.add((UnresolvedDependencyResult) dependency);
+            } else if (dependency instanceof ResolvedDependencyResult) {
+                ResolvedDependencyResult resolved = (ResolvedDependencyResult) dependency;
+                ResolvedComponentResult selected = resolved.getSelected();
+                Integer target = indices.get(selected);
+                if (target == null) {
+                    target = components.size();
+                    indices.put(selected, target);
+                    components.add(selected);
+                    stack.push(new Frame(target, selected));
+                }
+                edges.add(resolved);
+                edgeSources.add(frame.component);
+                edgeTargets.add(target);
+            }
+        }
+        return new ResolutionGraph(components, edges, edgeSources.build(), edgeTargets.build(), unresolved);
+    }
+
+    /** Unresolved dependencies, in the order of {@link #walk}. */
+    List<UnresolvedDependencyResult> unresolved() {
+        return unresolved;
+    }
+
+    int size() {
+        return components.length;
+    }
+
+    ResolvedComponentResult component(int component) {
+        return components[component];
+    }
+
+    /** Whether the component is an external module, as opposed to e.g. a project. */
+    boolean isModule(int component) {
+        return modules.get(component);
+    }
+
+    int numEdges() {
+        return edges.length;
+    }
+
+    int dependenciesStart(int component) {
+        return dependencyOffsets[component];
+    }
+
+    int dependenciesEnd(int component) {
+        return dependencyOffsets[component + 1];
+    }
+
+    int dependentsStart(int component) {
+        return dependentOffsets[component];
+    }
+
+    int dependentsEnd(int component) {
+        return dependentOffsets[component + 1];
+    }
+
+    /** Returns the edge at {@code index} in {@code [dependentsStart, dependentsEnd)}. */
+    int dependentEdge(int index) {
+        return dependentEdges[index];
+    }
+
+    ResolvedDependencyResult dependency(int edge) {
+        return edges[edge];
+    }
+
+    int source(int edge) {
+        return sources[edge];
+    }
+
+    int target(int edge) {
+        return targets[edge];
+    }
+
+    boolean isConstraint(int edge) {
+        return (flags[edge] & CONSTRAINT) != 0;
+    }
+
+    /** Whether the edge requested a module, as opposed to e.g. a project. */
+    boolean isModuleSelector(int edge) {
+        return (flags[edge] & MODULE_SELECTOR) != 0;
+    }
+
+    /**
+     * The {@link VersionConstraint#toString() version} requested by a {@link #isModuleSelector module selector} edge,
+     * or null for other edges. Unlike {@link #dependency}, this is safe to call from any thread.
+     */
+    String requestedVersion(int edge) {
+        return requestedVersions[edge];
+    }
+
+    boolean isFromProject(int edge) {
+        return (flags[edge] & FROM_PROJECT) != 0;
+    }
+
+    /** Returns the start of each component's run in {@code components}, once sorted, followed by the total length. */
+    private static int[] offsets(ImmutableIntArray components, int numComponents) {
+        int[] offsets = new int[numComponents + 1];
+        for (int i = 0; i < components.length(); i++) {
+            offsets[components.get(i) + 1]++;
+        }
+        for (int component = 0; component < numComponents; component++) {
+            offsets[component + 1] += offsets[component];
+        }
+        return offsets;
+    }
+
+    private static final class Frame {
+        private final int component;
+        private final Iterator<? extends DependencyResult> dependencies;
+
+        Frame(int component, ResolvedComponentResult result) {
+            this.component = component;
+            this.dependencies = result.getDependencies().iterator();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import com.google.common.base.Preconditions;
+import com.palantir.gradle.versions.VersionsLockPlugin.GcvScope;
+import java.util.stream.Stream;
+
+/**
+ * Sets of {@link GcvScope}s as a {@code byte} with one bit per scope, so that scopes can be merged and compared for
+ * every direct dependency and component without allocating. The smallest scope of every possible set, by
+ * {@link VersionsLockPlugin#GCV_SCOPE_COMPARATOR}, is looked up in a precomputed table.
+ */
+final class ScopeMasks {
+    static final byte NONE = 0;
+
+    private static final GcvScope[] SCOPES = GcvScope.values();
+
+    /** Scopes from the one that takes priority to the one that takes the least. */
+    static final GcvScope[] IN_PRIORITY_ORDER =
+            Stream.of(SCOPES).sorted(VersionsLockPlugin.GCV_SCOPE_COMPARATOR).toArray(GcvScope[]::new);
+
+    private static final GcvScope[] SMALLEST = smallestOfEachMask();
+
+    private ScopeMasks() {}
+
+    static byte of(GcvScope scope) {
+        return (byte) (1 << scope.ordinal());
+    }
+
+    /** Returns the scope of {@code mask} that takes priority, or {@code null} if it is {@link #NONE}. */
+    static GcvScope smallest(byte mask) {
+        return SMALLEST[mask];
+    }
+
+    /** Returns the mask of just the scope of {@code mask} that takes priority. */
+    static byte onlySmallest(byte mask) {
+        GcvScope scope = SMALLEST[mask];
+        return scope == null ? NONE : of(scope);
+    }
+
+    private static GcvScope[] smallestOfEachMask() {
+        Preconditions.checkState(SCOPES.length < Byte.SIZE, "Too many scopes for a byte mask");
+        GcvScope[] smallest = new GcvScope[1 << SCOPES.length];
+        for (int mask = 1; mask < smallest.length; mask++) {
+            for (GcvScope scope : IN_PRIORITY_ORDER) {
+                if ((mask & of(scope)) != 0) {
+                    smallest[mask] = scope;
+                    break;
+                }
+            }
+        }
+        return smallest;
+    }
+}
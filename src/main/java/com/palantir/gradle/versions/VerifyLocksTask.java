@@ -16,8 +16,7 @@
 
 package com.palantir.gradle.versions;
 
-import com.google.common.collect.MapDifference;
-import com.google.common.collect.MapDifference.ValueDifference;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import com.palantir.gradle.versions.internal.MyModuleIdentifier;
@@ -25,43 +24,56 @@ import com.palantir.gradle.versions.lockstate.Line;
 import com.palantir.gradle.versions.lockstate.LockState;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
 
-public class VerifyLocksTask extends DefaultTask {
+public abstract class VerifyLocksTask extends DefaultTask {
 
     private static final String WRITE_LOCKS_SUGGESTION = "./gradlew writeVersionsLocks";
     private final File outputFile;
-    private final Property<LockState> persistedLockState;
-    private final Property<LockState> currentLockState;
 
     public VerifyLocksTask() {
         setGroup(LifecycleBasePlugin.VERIFICATION_GROUP);
         setDescription("Verifies that your versions.lock is up to date");
 
         this.outputFile = new File(getTemporaryDir(), "verified");
-        this.persistedLockState = getProject().getObjects().property(LockState.class);
-        this.currentLockState = getProject().getObjects().property(LockState.class);
     }
 
-    @Input
-    final Property<LockState> getPersistedLockState() {
-        return persistedLockState;
-    }
+    /**
+     * The persisted lock file, which is only read once the task runs. It is the only file of a collection, rather
+     * than an {@code @InputFile}, as Gradle fails before running the task if an input file is missing, whereas the task
+     * can explain how to create the lock file.
+     */
+    @InputFiles
+    public abstract ConfigurableFileCollection getLockFile();
+
+    @Internal
+    public abstract Property<ParsedFilesCache> getParsedFilesCache();
 
     @Input
-    final Property<LockState> getCurrentLockState() {
-        return currentLockState;
-    }
+    public abstract Property<LockState> getCurrentLockState();
+
+    /**
+     * Stop comparing the lock states of a scope once this many differences have been found. By default, all differences
+     * are reported.
+     */
+    @Internal
+    public abstract Property<Integer> getMaxDifferences();
 
     @OutputFile
     final File getOutputFile() {
@@ -70,43 +82,123 @@ public class VerifyLocksTask extends DefaultTask {
 
     @TaskAction
     public final void taskAction() throws IOException {
-        verifyLocksForScope(LockState::productionLinesByModuleIdentifier);
-        verifyLocksForScope(LockState::testLinesByModuleIdentifier);
+        Path lockFile = getLockFile().getSingleFile().toPath();
+        VersionsLockPlugin.failIfRootLockFileMissing(lockFile);
+        LockState persistedLockState = getParsedFilesCache().get().readLocks(lockFile);
+        LockState currentLockState = getCurrentLockState().get();
+        verifyLocksForScope(
+                persistedLockState,
+                currentLockState,
+                LockState::productionLines,
+                LockState::productionLinesByModuleIdentifier);
+        verifyLocksForScope(
+                persistedLockState, currentLockState, LockState::testLines, LockState::testLinesByModuleIdentifier);
         Files.touch(outputFile);
     }
 
-    private void verifyLocksForScope(Function<LockState, SortedMap<MyModuleIdentifier, Line>> getterForScope) {
-        MapDifference<MyModuleIdentifier, Line> difference = Maps.difference(
-                getterForScope.apply(persistedLockState.get()), getterForScope.apply(currentLockState.get()));
+    /**
+     * Compares both lock states in a single merge-join pass over their lines, which are already sorted by
+     * {@link GradleComparators#MODULE_IDENTIFIER_COMPARATOR}.
+     */
+    private void verifyLocksForScope(
+            LockState persistedLockState,
+            LockState currentLockState,
+            Function<LockState, List<Line>> linesForScope,
+            Function<LockState, ? extends Map<MyModuleIdentifier, Line>> sortedLinesForScope) {
+        int limit = getMaxDifferences().getOrElse(Integer.MAX_VALUE);
+        Preconditions.checkArgument(limit > 0, "maxDifferences must be positive, but was %s", limit);
+        Iterator<Line> persisted = sortedLines(persistedLockState, linesForScope, sortedLinesForScope);
+        Iterator<Line> current = sortedLines(currentLockState, linesForScope, sortedLinesForScope);
+
+        List<MyModuleIdentifier> missing = new ArrayList<>();
+        List<MyModuleIdentifier> unknown = new ArrayList<>();
+        List<Map.Entry<Line, Line>> differing = new ArrayList<>();
+
+        Line left = next(persisted);
+        Line right = next(current);
+        int found = 0;
+        while ((left != null || right != null) && found < limit) {
+            int comparison = compare(left, right);
+            if (comparison < 0) {
+                missing.add(left.identifier());
+                found++;
+                left = next(persisted);
+            } else if (comparison > 0) {
+                unknown.add(right.identifier());
+                found++;
+                right = next(current);
+            } else {
+                if (!left.equals(right)) {
+                    differing.add(Maps.immutableEntry(left, right));
+                    found++;
+                }
+                left = next(persisted);
+                right = next(current);
+            }
+        }
+        String truncated = found >= limit && (left != null || right != null)
+                ? " (stopped comparing after " + limit + " differences)"
+                : "";
 
-        Set<MyModuleIdentifier> missing = difference.entriesOnlyOnLeft().keySet();
         Validators.checkResultOrThrow(
                 missing.isEmpty(),
-                "Locked dependencies missing from the resolution result: " + missing + ". Please run '%s'.",
+                "Locked dependencies missing from the resolution result: " + missing + truncated + ". Please run '%s'.",
                 WRITE_LOCKS_SUGGESTION);
 
-        Set<MyModuleIdentifier> unknown = difference.entriesOnlyOnRight().keySet();
         Validators.checkResultOrThrow(
                 unknown.isEmpty(),
-                "Found dependencies that were not in the lock state: " + unknown + ". Please run '%s'.",
+                "Found dependencies that were not in the lock state: " + unknown + truncated + ". Please run '%s'.",
                 WRITE_LOCKS_SUGGESTION);
 
-        Map<MyModuleIdentifier, ValueDifference<Line>> differing = difference.entriesDiffering();
         Validators.checkResultOrThrow(
                 differing.isEmpty(),
-                "Found dependencies whose dependents changed:\n" + formatDependencyDifferences(differing)
-                        + "\nPlease run %s.",
+                "Found dependencies whose dependents changed" + truncated + ":\n"
+                        + formatDependencyDifferences(differing) + "\nPlease run %s.",
                 WRITE_LOCKS_SUGGESTION);
     }
 
-    private static String formatDependencyDifferences(Map<MyModuleIdentifier, ValueDifference<Line>> differing) {
-        return differing.entrySet().stream()
+    /**
+     * Returns the lines of a scope in order, only falling back to the sorted map if they are not already strictly
+     * sorted, e.g. because the lock file was edited by hand.
+     */
+    private static Iterator<Line> sortedLines(
+            LockState lockState,
+            Function<LockState, List<Line>> linesForScope,
+            Function<LockState, ? extends Map<MyModuleIdentifier, Line>> sortedLinesForScope) {
+        List<Line> lines = linesForScope.apply(lockState);
+        for (int i = 1; i < lines.size(); i++) {
+            if (GradleComparators.MODULE_IDENTIFIER_COMPARATOR.compare(
+                            lines.get(i - 1).identifier(), lines.get(i).identifier())
+                    >= 0) {
+                Collection<Line> sorted = sortedLinesForScope.apply(lockState).values();
+                return sorted.iterator();
+            }
+        }
+        return lines.iterator();
+    }
+
+    /** Orders lines by module, with the end of either side ({@code null}) sorting last. */
+    private static int compare(Line left, Line right) {
+        if (left == null) {
+            return 1;
+        }
+        if (right == null) {
+            return -1;
+        }
+        return GradleComparators.MODULE_IDENTIFIER_COMPARATOR.compare(left.identifier(), right.identifier());
+    }
+
+    private static Line next(Iterator<Line> lines) {
+        return lines.hasNext() ? lines.next() : null;
+    }
+
+    private static String formatDependencyDifferences(List<Map.Entry<Line, Line>> differing) {
+        return differing.stream()
                 .map(diff -> String.format(
                         "" // to align strings
                                 + "-%s\n"
                                 + "+%s",
-                        diff.getValue().leftValue().stringRepresentation(),
-                        diff.getValue().rightValue().stringRepresentation()))
+                        diff.getKey().stringRepresentation(), diff.getValue().stringRepresentation()))
                 .collect(Collectors.joining("\n"));
     }
 }
@@ -28,11 +28,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.palantir.gradle.versions.internal.MyModuleIdentifier;
-import com.palantir.gradle.versions.internal.MyModuleVersionIdentifier;
-import com.palantir.gradle.versions.lockstate.Dependents;
 import com.palantir.gradle.versions.lockstate.FullLockState;
 import com.palantir.gradle.versions.lockstate.Line;
 import com.palantir.gradle.versions.lockstate.LockState;
@@ -41,19 +38,14 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -73,14 +65,7 @@ import org.gradle.api.artifacts.DependencySet;
 import org.gradle.api.artifacts.ExternalModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ProjectDependency;
-import org.gradle.api.artifacts.VersionConstraint;
-import org.gradle.api.artifacts.component.ComponentSelector;
-import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
-import org.gradle.api.artifacts.component.ModuleComponentSelector;
-import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
-import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
-import org.gradle.api.artifacts.result.ResolvedDependencyResult;
 import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.attributes.AttributeCompatibilityRule;
@@ -95,6 +80,7 @@ import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.publish.Publication;
 import org.gradle.api.publish.PublishingExtension;
 import org.gradle.api.publish.ivy.IvyPublication;
@@ -113,6 +99,8 @@ public class VersionsLockPlugin implements Plugin<Project> {
     /** Root project configuration that collects all the dependencies from each project. */
     static final String UNIFIED_CLASSPATH_CONFIGURATION_NAME = "unifiedClasspath";
 
+    private static final String LOCK_FILE_NAME = "versions.lock";
+
     /** Per-project configuration that gets resolved when resolving the user's inter-project dependencies. */
     private static final String PLACEHOLDER_CONFIGURATION_NAME = "consistentVersionsPlaceholder";
 
@@ -200,7 +188,7 @@ public class VersionsLockPlugin implements Plugin<Project> {
     }
 
     static Path getRootLockFile(Project project) {
-        return project.file("versions.lock").toPath();
+        return project.file(LOCK_FILE_NAME).toPath();
     }
 
     @Override
@@ -231,6 +219,12 @@ public class VersionsLockPlugin implements Plugin<Project> {
         });
 
         Path rootLockfile = getRootLockFile(project);
+        Provider<ParsedFilesCache> parsedFilesCache = ParsedFilesCache.register(project.getGradle());
+        // Reading the lock file through this provider at configuration time makes it an input of the configuration
+        // cache, so the bytes it returns are what gets parsed.
+        Provider<byte[]> rootLockfileContents = project.getProviders()
+                .fileContents(project.getLayout().getProjectDirectory().file(LOCK_FILE_NAME))
+                .getAsBytes();
 
         Property<FullLockState> fullLockStateProperty = project.getObjects().property(FullLockState.class);
 
@@ -258,9 +252,14 @@ public class VersionsLockPlugin implements Plugin<Project> {
         // This is a "marker" task that does nothing, it exists solely that we can detect if it has been run and so
         // write the versions lock task without running --write-locks code from any other gradle plugin. Unfortunately,
         // we can't just have the task run the write locks code as we need to write the locks in afterEvaluate.
+        // For the same reason, a configuration cache entry must never be reused for it, as that would skip writing
+        // the locks. Gradle already refuses to reuse entries for --write-locks itself.
         project.getTasks()
                 .register(WRITE_VERSIONS_LOCKS_TASK, WriteVersionsLocksMarkerTask.class, writeVersionsLocks -> {
+                    writeVersionsLocks.notCompatibleWithConfigurationCache(
+                            "The lock file is written at configuration time");
                     writeVersionsLocks.getOutputs().upToDateWhen(_ignored -> false);
+                    writeVersionsLocks.getLocksWritten().set(shouldWriteLocks(project));
                 });
 
         // afterEvaluate is necessary to ensure all projects' dependencies have been configured, because we
@@ -282,23 +281,20 @@ public class VersionsLockPlugin implements Plugin<Project> {
             DirectDependencyScopes directDependencyScopes = recursivelyCopyProjectDependencies(
                     project, unifiedClasspath.getIncoming().getDependencies());
 
-            StartParameter startParameter = project.getGradle().getStartParameter();
-            Supplier<FullLockState> fullLockStateSupplier = Suppliers.memoize(() -> {
-                ResolutionResult resolutionResult =
-                        unifiedClasspath.getIncoming().getResolutionResult();
-                // Throw if there are dependencies that are not present in the lock state.
-                if (startParameter.isConfigureOnDemand()
-                        && project.getAllprojects().stream()
-                                .anyMatch(subproject -> !subproject.getState().getExecuted())) {
-                    throw new GradleException("All projects must have been configured for this task to work "
-                            + "correctly, but due to Gradle configuration-on-demand, not all projects were configured. "
-                            + "Make your command work by including a task with no project name (such as "
-                            + "`./gradlew build` vs. `./gradlew :build`) or use --no-configure-on-demand.");
-                }
-                failIfAnyDependenciesUnresolved(resolutionResult);
-                return computeLockState(resolutionResult, directDependencyScopes);
-            });
-            fullLockStateProperty.set(project.provider(fullLockStateSupplier::get));
+            // Projects that aren't configured by now didn't have their locked configurations wired up above either,
+            // so this is decided here, once, rather than whenever the lock state is computed.
+            boolean allProjectsConfigured = areAllProjectsConfigured(project);
+            LockedComponentsOnce lockedComponents = new LockedComponentsOnce(directDependencyScopes, showStacktrace);
+
+            // The transform only captures plain values, never the project or configuration, so that the lock state
+            // can be stored in (and reused from) the configuration cache.
+            fullLockStateProperty.set(unifiedClasspath
+                    .getIncoming()
+                    .getResolutionResult()
+                    .getRootComponent()
+                    .map(root ->
+                            lockedComponents.get(root, allProjectsConfigured).fullLockState()));
+            fullLockStateProperty.finalizeValueOnRead();
 
             if (shouldWriteLocks(project)) {
                 if (isSkipWriteLocks(project)) {
@@ -306,8 +302,14 @@ public class VersionsLockPlugin implements Plugin<Project> {
                             "Skipped writing lock state to {} because the 'gcvSkipWriteLocks' property was set",
                             rootLockfile);
                 } else {
-                    // Triggers evaluation of unifiedClasspath
-                    new ConflictSafeLockFile(rootLockfile).writeLocks(fullLockStateSupplier.get());
+                    // Triggers evaluation of unifiedClasspath. The lines are streamed into the lock file, rather than
+                    // first computing the full lock state of the whole graph.
+                    LockedComponents components = lockedComponents.get(
+                            unifiedClasspath.getIncoming().getResolutionResult().getRoot(), allProjectsConfigured);
+                    if (new ConflictSafeLockFile(rootLockfile)
+                            .writeLocks(components.lines(GcvScope.PRODUCTION), components.lines(GcvScope.TEST))) {
+                        parsedFilesCache.get().invalidate(rootLockfile);
+                    }
                     log.lifecycle("Finished writing lock state to {}", rootLockfile);
                 }
             } else {
@@ -315,34 +317,40 @@ public class VersionsLockPlugin implements Plugin<Project> {
                     log.lifecycle("Ignoring lock file for debugging because the 'ignoreLockFile' property was set");
                     return;
                 }
+            }
 
-                if (Files.notExists(rootLockfile)) {
-                    throw new GradleException(String.format(
-                            "Root lock file '%s' doesn't exist, please run "
-                                    + "`./gradlew --write-locks` to initialise locks",
-                            rootLockfile));
+            // The lock file is only read once a configuration that extends from the locks, or publishes them, is
+            // actually resolved, so that invocations which resolve nothing (e.g. `help`, `tasks`, `clean`) skip it.
+            Provider<LockState> lockState = project.provider(() -> {
+                byte[] content = rootLockfileContents.getOrNull();
+                if (content == null) {
+                    throw rootLockFileMissing(rootLockfile);
                 }
-            }
+                return parsedFilesCache.get().readLocks(rootLockfile, content);
+            });
 
             // Wire up the locks from the lock file into the strict locks platform.
             gcvLocksConfiguration.configure(conf -> {
                 conf.getDependencyConstraints()
-                        .addAll(constructConstraintsFromLockFile(
-                                rootLockfile, project.getDependencies().getConstraints()::create));
+                        .addAllLater(lockState.map(locks -> constructConstraintsFromLockFile(
+                                locks, project.getDependencies().getConstraints()::create)));
             });
 
-            configureAllProjectsUsingConstraints(project, rootLockfile, lockedConfigurations, locksDependency);
+            configureAllProjectsUsingConstraints(project, lockState, lockedConfigurations, locksDependency);
         });
 
         TaskProvider<?> verifyLocks = project.getTasks().register("verifyLocks", VerifyLocksTask.class, task -> {
             task.getCurrentLockState().set(fullLockStateProperty.map(LockStates::toLockState));
-            task.getPersistedLockState()
-                    .set(project.provider(() -> new ConflictSafeLockFile(rootLockfile).readLocks()));
+            task.getLockFile().from(project.getLayout().getProjectDirectory().file(LOCK_FILE_NAME));
+            task.getParsedFilesCache().set(parsedFilesCache);
+            task.usesService(parsedFilesCache);
         });
         project.getTasks().named(LifecycleBasePlugin.CHECK_TASK_NAME).configure(check -> check.dependsOn(verifyLocks));
 
         project.getTasks().register("why", WhyDependencyTask.class, t -> {
-            t.lockfile(rootLockfile);
+            t.getLockFile().set(project.getLayout().getProjectDirectory().file(LOCK_FILE_NAME));
+            t.getParsedFilesCache().set(parsedFilesCache);
+            t.usesService(parsedFilesCache);
             t.fullLockState(fullLockStateProperty);
         });
     }
@@ -752,131 +760,86 @@ public class VersionsLockPlugin implements Plugin<Project> {
                 && project.getGroup().equals(subproject.getGroup());
     }
 
-    private void failIfAnyDependenciesUnresolved(ResolutionResult resolutionResult) {
-        List<UnresolvedDependencyResult> unresolved = resolutionResult.getAllDependencies().stream()
-                .filter(a -> a instanceof UnresolvedDependencyResult)
-                .map(a -> (UnresolvedDependencyResult) a)
-                .collect(Collectors.toList());
-        if (!unresolved.isEmpty()) {
-            GradleException gradleException = new GradleException(String.format(
-                    "Could not compute lock state from configuration '%s' due to unresolved dependencies "
-                            + "(see suppressed exceptions below for full stacktraces):\n%s",
-                    UNIFIED_CLASSPATH_CONFIGURATION_NAME,
-                    unresolved.stream()
-                            .map(this::formatUnresolvedDependencyResult)
-                            .collect(Collectors.joining("\n"))));
-
-            unresolved.forEach(unresolvedDependencyResult -> {
-                gradleException.addSuppressed(unresolvedDependencyResult.getFailure());
-            });
+    private static boolean areAllProjectsConfigured(Project rootProject) {
+        return !rootProject.getGradle().getStartParameter().isConfigureOnDemand()
+                || rootProject.getAllprojects().stream()
+                        .allMatch(subproject -> subproject.getState().getExecuted());
+    }
 
-            throw gradleException;
+    static void failIfRootLockFileMissing(Path rootLockfile) {
+        if (Files.notExists(rootLockfile)) {
+            throw rootLockFileMissing(rootLockfile);
         }
     }
 
-    /**
-     * Assumes the resolution result succeeded, that is, {@link #failIfAnyDependenciesUnresolved} was run and didn't
-     * throw.
-     *
-     * @param directDependencyScopes the scope that we've attributed to each {@link ModuleIdentifier external module}
-     *     that was being directly depend on (from some locked configuration).
-     */
-    private static FullLockState computeLockState(
-            ResolutionResult resolutionResult, DirectDependencyScopes directDependencyScopes) {
-        Map<ResolvedComponentResult, GcvScope> scopeCache = new HashMap<>();
-
-        FullLockState.Builder builder = FullLockState.builder();
-        resolutionResult.getAllComponents().stream()
-                .filter(component -> component.getId() instanceof ModuleComponentIdentifier)
-                .forEach(component -> {
-                    GcvScope scope = getScope(component, scopeCache, directDependencyScopes);
-                    switch (scope) {
-                        case PRODUCTION:
-                            builder.putProductionDeps(
-                                    MyModuleVersionIdentifier.copyOf(component.getModuleVersion()),
-                                    extractDependents(component));
-                            return;
-                        case TEST:
-                            builder.putTestDeps(
-                                    MyModuleVersionIdentifier.copyOf(component.getModuleVersion()),
-                                    extractDependents(component));
-                            return;
-                    }
-                    throw new RuntimeException(String.format(
-                            "Unexpected scope for component %s: %s", component.getModuleVersion(), scope));
-                });
-        return builder.build();
+    private static GradleException rootLockFileMissing(Path rootLockfile) {
+        return new GradleException(String.format(
+                "Root lock file '%s' doesn't exist, please run `./gradlew --write-locks` to initialise locks",
+                rootLockfile));
     }
 
-    private static GcvScope getScope(
-            ResolvedComponentResult component,
-            Map<ResolvedComponentResult, GcvScope> scopeCache,
-            DirectDependencyScopes directDependencyScopes) {
-        Optional<GcvScope> cached = Optional.ofNullable(scopeCache.get(component));
-        if (cached.isPresent()) {
-            return cached.get();
+    /**
+     * Computes the {@link LockedComponents} of {@code unifiedClasspath} at most once per build, so that writing the
+     * lock file and the tasks that need the {@link FullLockState} (e.g. {@code --write-locks check}) share them. They
+     * are transient, so they are recomputed rather than stored when the configuration cache is used.
+     */
+    private static final class LockedComponentsOnce {
+        private final DirectDependencyScopes directDependencyScopes;
+        private final ShowStacktrace showStacktrace;
+        private transient LockedComponents lockedComponents;
+
+        LockedComponentsOnce(DirectDependencyScopes directDependencyScopes, ShowStacktrace showStacktrace) {
+            this.directDependencyScopes = directDependencyScopes;
+            this.showStacktrace = showStacktrace;
         }
 
-        Set<ResolvedDependencyResult> traversedComponents = new HashSet<>();
-        Deque<ResolvedDependencyResult> stack =
-                new ArrayDeque<>(component.getDependents().size());
-        stack.addAll(component.getDependents());
-
-        Set<GcvScope> discoveredScopes = Sets.newHashSetWithExpectedSize(2);
-        while (!stack.isEmpty()) {
-            ResolvedDependencyResult dependent = stack.removeFirst();
-            if (dependent.isConstraint() || !(dependent.getRequested() instanceof ModuleComponentSelector)) {
-                continue;
-            } else if (traversedComponents.contains(dependent)) {
-                continue;
-            }
-
-            traversedComponents.add(dependent);
-            Optional<GcvScope> cachedValue = Optional.ofNullable(scopeCache.get(dependent.getFrom()));
-            if (cachedValue.isPresent()) {
-                discoveredScopes.add(cachedValue.get());
-                continue;
+        synchronized LockedComponents get(ResolvedComponentResult root, boolean allProjectsConfigured) {
+            if (lockedComponents == null) {
+                lockedComponents =
+                        computeLockedComponents(root, allProjectsConfigured, directDependencyScopes, showStacktrace);
             }
-
-            ModuleIdentifier requestedModule =
-                    ((ModuleComponentSelector) dependent.getRequested()).getModuleIdentifier();
-            // If the dependency came from a project, then the requested ModuleIdentifier should be in the
-            // edgeScopes. Otherwise, recurse until we find a project dependent.
-            Optional<GcvScope> maybeScope = directDependencyScopes.getScopeFor(requestedModule);
-            if (dependent.getFrom().getId() instanceof ProjectComponentIdentifier && maybeScope.isPresent()) {
-                discoveredScopes.add(maybeScope.get());
-                continue;
-            }
-
-            stack.addAll(dependent.getFrom().getDependents());
+            return lockedComponents;
         }
-
-        GcvScope scope = discoveredScopes.stream()
-                .min(GCV_SCOPE_COMPARATOR)
-                .orElseThrow(() -> new RuntimeException("Couldn't determine scope for dependency: " + component));
-
-        scopeCache.put(component, scope);
-
-        return scope;
     }
 
-    private static Dependents extractDependents(ResolvedComponentResult component) {
-        return Dependents.of(component.getDependents().stream()
-                .collect(Collectors.groupingBy(
-                        dep -> dep.getFrom().getId(),
-                        () -> new TreeMap<>(GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR),
-                        Collectors.mapping(
-                                dep -> getRequestedVersionConstraint(dep.getRequested()),
-                                Collectors.toCollection(
-                                        () -> new TreeSet<>(Comparator.comparing(VersionConstraint::toString)))))));
+    /**
+     * Assumes that the resolution of {@code unifiedClasspath} is what produced {@code root}, and throws if it is
+     * incomplete.
+     */
+    private static LockedComponents computeLockedComponents(
+            ResolvedComponentResult root,
+            boolean allProjectsConfigured,
+            DirectDependencyScopes directDependencyScopes,
+            ShowStacktrace showStacktrace) {
+        // Throw if there are dependencies that are not present in the lock state.
+        if (!allProjectsConfigured) {
+            throw new GradleException("All projects must have been configured for this task to work "
+                    + "correctly, but due to Gradle configuration-on-demand, not all projects were configured. "
+                    + "Make your command work by including a task with no project name (such as "
+                    + "`./gradlew build` vs. `./gradlew :build`) or use --no-configure-on-demand.");
+        }
+        ResolutionGraph graph = ResolutionGraph.walk(root);
+        failIfAnyDependenciesUnresolved(graph, showStacktrace);
+        return LockedComponents.compute(graph, directDependencyScopes);
     }
 
-    private static VersionConstraint getRequestedVersionConstraint(ComponentSelector requested) {
-        if (requested instanceof ModuleComponentSelector) {
-            return ((ModuleComponentSelector) requested).getVersionConstraint();
+    private static void failIfAnyDependenciesUnresolved(ResolutionGraph graph, ShowStacktrace showStacktrace) {
+        List<UnresolvedDependencyResult> unresolved = graph.unresolved();
+        if (!unresolved.isEmpty()) {
+            GradleException gradleException = new GradleException(String.format(
+                    "Could not compute lock state from configuration '%s' due to unresolved dependencies "
+                            + "(see suppressed exceptions below for full stacktraces):\n%s",
+                    UNIFIED_CLASSPATH_CONFIGURATION_NAME,
+                    unresolved.stream()
+                            .map(result -> formatUnresolvedDependencyResult(result, showStacktrace))
+                            .collect(Collectors.joining("\n"))));
+
+            unresolved.forEach(unresolvedDependencyResult -> {
+                gradleException.addSuppressed(unresolvedDependencyResult.getFailure());
+            });
+
+            throw gradleException;
         }
-        throw new RuntimeException(String.format(
-                "Expecting a ModuleComponentSelector but found a %s: %s", requested.getClass(), requested));
     }
 
     /**
@@ -885,7 +848,8 @@ public class VersionsLockPlugin implements Plugin<Project> {
      * since that whole class is not public API.
      */
     @SuppressWarnings("SafeLoggingPropagation")
-    private String formatUnresolvedDependencyResult(UnresolvedDependencyResult result) {
+    private static String formatUnresolvedDependencyResult(
+            UnresolvedDependencyResult result, ShowStacktrace showStacktrace) {
         StringBuilder failures = new StringBuilder();
         for (Throwable failure = result.getFailure(); failure != null; failure = failure.getCause()) {
             failures.append("         - ");
@@ -907,26 +871,32 @@ public class VersionsLockPlugin implements Plugin<Project> {
 
     private static void configureAllProjectsUsingConstraints(
             Project rootProject,
-            Path gradleLockfile,
+            Provider<LockState> lockState,
             Map<Project, LockedConfigurations> lockedConfigurations,
             ProjectDependency locksDependency) {
 
-        List<DependencyConstraint> publishableConstraints = constructPublishableConstraintsFromLockFile(
-                rootProject, gradleLockfile, rootProject.getDependencies().getConstraints()::create);
+        // The publishable constraints are created once, the first time any project's gcvPublishConstraints is
+        // realized. Each realized gcvPublishConstraints still adds every one of them to its own constraint set, so only
+        // the creation of the constraints is shared, and the O(projects * locks) copying is merely deferred.
+        Supplier<List<DependencyConstraint>> publishableConstraints =
+                Suppliers.memoize(() -> constructPublishableConstraintsFromLockFile(
+                        rootProject,
+                        lockState.get(),
+                        rootProject.getDependencies().getConstraints()::create));
+        Provider<List<DependencyConstraint>> sharedPublishableConstraints =
+                rootProject.provider(publishableConstraints::get);
+        // All projects have been evaluated by now, so which of them are libraries can be worked out once for the
+        // whole build, the first time any project publishes local constraints.
+        Supplier<Map<Project, DependencyConstraint>> localLibraryConstraints =
+                Suppliers.memoize(() -> constructPublishableConstraintsFromLocalProjects(
+                        rootProject, rootProject.getDependencies().getConstraints()::create));
 
         rootProject.allprojects(subproject -> {
-            // Avoid including the current project as a constraint -- it must already be present to provide constraints
-            List<DependencyConstraint> localProjectConstraints = constructPublishableConstraintsFromLocalProjects(
-                    subproject, rootProject.getDependencies().getConstraints()::create);
-            ImmutableList<DependencyConstraint> publishableConstraintsForSubproject =
-                    ImmutableList.<DependencyConstraint>builder()
-                            .addAll(localProjectConstraints)
-                            .addAll(publishableConstraints)
-                            .build();
             configureUsingConstraints(
                     subproject,
                     locksDependency,
-                    publishableConstraintsForSubproject,
+                    sharedPublishableConstraints,
+                    localLibraryConstraints,
                     lockedConfigurations.get(subproject));
         });
     }
@@ -934,7 +904,8 @@ public class VersionsLockPlugin implements Plugin<Project> {
     private static void configureUsingConstraints(
             Project subproject,
             ProjectDependency locksDependency,
-            List<DependencyConstraint> publishableConstraints,
+            Provider<List<DependencyConstraint>> publishableConstraints,
+            Supplier<Map<Project, DependencyConstraint>> localLibraryConstraints,
             LockedConfigurations lockedConfigurations) {
         Configuration locksConfiguration = subproject
                 .getConfigurations()
@@ -958,7 +929,14 @@ public class VersionsLockPlugin implements Plugin<Project> {
                     conf.setDescription("Publishable constraints from the GCV versions.lock file");
                     conf.setCanBeResolved(false);
                     conf.setCanBeConsumed(false);
-                    conf.getDependencyConstraints().addAll(publishableConstraints);
+                    if (publishLocalConstraints(subproject)) {
+                        // Avoid including the current project as a constraint -- it must already be present to
+                        // provide constraints
+                        Map<Project, DependencyConstraint> otherLibraries =
+                                Maps.filterKeys(localLibraryConstraints.get(), library -> !subproject.equals(library));
+                        conf.getDependencyConstraints().addAll(otherLibraries.values());
+                    }
+                    conf.getDependencyConstraints().addAllLater(publishableConstraints);
                 });
 
         // Enrich the configurations being published as part of the java component (components.java)
@@ -1043,8 +1021,7 @@ public class VersionsLockPlugin implements Plugin<Project> {
     }
 
     private static List<DependencyConstraint> constructConstraintsFromLockFile(
-            Path gradleLockfile, DependencyConstraintCreator constraintCreator) {
-        LockState lockState = new ConflictSafeLockFile(gradleLockfile).readLocks();
+            LockState lockState, DependencyConstraintCreator constraintCreator) {
         Stream<Map.Entry<MyModuleIdentifier, Line>> locks = Stream.concat(
                 lockState.productionLinesByModuleIdentifier().entrySet().stream(),
                 lockState.testLinesByModuleIdentifier().entrySet().stream());
@@ -1062,8 +1039,7 @@ public class VersionsLockPlugin implements Plugin<Project> {
     }
 
     private static List<DependencyConstraint> constructPublishableConstraintsFromLockFile(
-            Project rootProject, Path gradleLockfile, DependencyConstraintCreator constraintCreator) {
-        LockState lockState = new ConflictSafeLockFile(gradleLockfile).readLocks();
+            Project rootProject, LockState lockState, DependencyConstraintCreator constraintCreator) {
         // We only publish the production locks.
         return lockState.productionLinesByModuleIdentifier().entrySet().stream()
                 .map(e -> e.getKey() + ":" + e.getValue().version())
@@ -1078,21 +1054,17 @@ public class VersionsLockPlugin implements Plugin<Project> {
                 .collect(Collectors.toList());
     }
 
-    private static List<DependencyConstraint> constructPublishableConstraintsFromLocalProjects(
-            Project currentProject, DependencyConstraintCreator constraintCreator) {
-        if (publishLocalConstraints(currentProject)) {
-            // Include all other libraries published from the same repository
-            return currentProject.getRootProject().getAllprojects().stream()
-                    .filter(project -> !currentProject.equals(project))
-                    .filter(VersionsLockPlugin::isJavaLibrary)
-                    .map(libraryProject -> constraintCreator.create(
-                            libraryProject,
-                            constraint -> constraint.because("Library published from the same project: "
-                                    + currentProject.getRootProject().getName())))
-                    .collect(Collectors.toList());
-        } else {
-            return ImmutableList.of();
-        }
+    /** Constraints on all the libraries published from the same repository, keyed by the library project. */
+    private static Map<Project, DependencyConstraint> constructPublishableConstraintsFromLocalProjects(
+            Project rootProject, DependencyConstraintCreator constraintCreator) {
+        return rootProject.getAllprojects().stream()
+                .filter(VersionsLockPlugin::isJavaLibrary)
+                .collect(ImmutableMap.toImmutableMap(
+                        Functions.identity(),
+                        libraryProject -> constraintCreator.create(
+                                libraryProject,
+                                constraint -> constraint.because(
+                                        "Library published from the same project: " + rootProject.getName()))));
     }
 
     private static boolean publishLocalConstraints(Project project) {
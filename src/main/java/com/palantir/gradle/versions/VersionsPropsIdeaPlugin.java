@@ -16,26 +16,25 @@
 
 package com.palantir.gradle.versions;
 
-import java.util.List;
 import java.util.stream.Collectors;
-import org.gradle.StartParameter;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
+import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.api.tasks.TaskProvider;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.gradle.plugins.ide.idea.model.IdeaModel;
 
+/**
+ * Writes the maven repositories of the project for IntelliJ. The task runs as part of the {@code idea} task, and,
+ * when the <a href="https://github.com/JetBrains/gradle-idea-ext-plugin">idea-ext</a> plugin is applied, after every
+ * IDE sync.
+ */
 public final class VersionsPropsIdeaPlugin implements Plugin<Project> {
-    private static final Logger log = LoggerFactory.getLogger(VersionsPropsIdeaPlugin.class);
+    private static final String IDEA_EXT_PLUGIN_ID = "org.jetbrains.gradle.plugin.idea-ext";
 
     @Override
     public void apply(Project project) {
-
-        if (!Boolean.getBoolean("idea.active")) {
-            return;
-        }
-
         TaskProvider<GenerateMavenRepositoriesTask> writeMavenRepositories = project.getTasks()
                 .register("writeMavenRepositories", GenerateMavenRepositoriesTask.class, task -> {
                     task.getMavenRepositories().set(project.provider(() -> project.getRepositories().stream()
@@ -46,9 +45,18 @@ public final class VersionsPropsIdeaPlugin implements Plugin<Project> {
                             .collect(Collectors.toSet())));
                 });
 
-        StartParameter startParameter = project.getGradle().getStartParameter();
-        List<String> taskNames = startParameter.getTaskNames();
-        taskNames.add(String.format(":%s", writeMavenRepositories.getName()));
-        startParameter.setTaskNames(taskNames);
+        project.getPluginManager().withPlugin("idea", _plugin -> project.getTasks()
+                .named("idea")
+                .configure(idea -> idea.dependsOn(writeMavenRepositories)));
+
+        // An IDE sync only runs the tasks it is told to through idea-ext's task triggers. That plugin isn't on our
+        // classpath, so its settings are looked up by name, as they are in a build script.
+        project.getPluginManager().withPlugin(IDEA_EXT_PLUGIN_ID, _plugin -> {
+            IdeaModel idea = project.getExtensions().getByType(IdeaModel.class);
+            Object settings =
+                    ((ExtensionAware) idea.getProject()).getExtensions().getByName("settings");
+            Object taskTriggers = ((ExtensionAware) settings).getExtensions().getByName("taskTriggers");
+            InvokerHelper.invokeMethod(taskTriggers, "afterSync", new Object[] {writeMavenRepositories});
+        });
     }
 }
@@ -19,7 +19,6 @@ package com.palantir.gradle.versions;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -52,7 +51,8 @@ import org.gradle.util.GradleVersion;
 public class VersionsPropsPlugin implements Plugin<Project> {
     private static final Logger log = Logging.getLogger(VersionsPropsPlugin.class);
     private static final String ROOT_CONFIGURATION_NAME = "rootConfiguration";
-    private static final GradleVersion MINIMUM_GRADLE_VERSION = GradleVersion.version("5.2");
+    // Parsed versions.props files are shared through a build service, and those are only available from Gradle 6.1.
+    private static final GradleVersion MINIMUM_GRADLE_VERSION = GradleVersion.version("6.1");
     private static final ImmutableSet<String> JAVA_PUBLISHED_CONFIGURATION_NAMES =
             ImmutableSet.of(JavaPlugin.RUNTIME_ELEMENTS_CONFIGURATION_NAME, JavaPlugin.API_ELEMENTS_CONFIGURATION_NAME);
     private static final String GCV_VERSIONS_PROPS_CONSTRAINTS_CONFIGURATION_NAME = "gcvVersionsPropsConstraints";
@@ -87,7 +87,7 @@ public class VersionsPropsPlugin implements Plugin<Project> {
                                             project.getExtensions().getByType(VersionRecommendationsExtension.class)))
                                     .collect(Collectors.toSet())));
                         }
-                        task.getPropsFile()
+                        task.getVersionsPropsFile()
                                 .set(project.getLayout().getProjectDirectory().file("versions.props"));
                     });
             project.getTasks().named("check").configure(task -> task.dependsOn(checkNoUnusedConstraints));
@@ -95,8 +95,11 @@ public class VersionsPropsPlugin implements Plugin<Project> {
             // Currently checkOverbroadConstraints is not running as part of check while for testing - uncomment once
             // testing is complete (also uncomment groovy test)
             //            TaskProvider<CheckOverbroadConstraints> checkOverbroadConstraints =
+            Provider<ParsedFilesCache> parsedFilesCache = ParsedFilesCache.register(project.getGradle());
             project.getTasks().register("checkOverbroadConstraints", CheckOverbroadConstraints.class, task -> {
                 task.getLockFile().set(project.getLayout().getProjectDirectory().file("versions.lock"));
+                task.getParsedFilesCache().set(parsedFilesCache);
+                task.usesService(parsedFilesCache);
                 task.getPropsFile()
                         .set(project.getLayout().getProjectDirectory().file("versions.props"));
             });
@@ -317,18 +320,25 @@ public class VersionsPropsPlugin implements Plugin<Project> {
     private static VersionsProps getVersionsProps(Project rootProject) {
         VersionsProps versionsProps = rootProject.getExtensions().findByType(VersionsProps.class);
         if (versionsProps == null) {
-            versionsProps = loadVersionsProps(rootProject.file("versions.props").toPath());
+            versionsProps = loadVersionsProps(
+                    rootProject, rootProject.file("versions.props").toPath());
             rootProject.getExtensions().add(VERSION_PROPS_EXTENSION, versionsProps);
         }
         return versionsProps;
     }
 
-    private static VersionsProps loadVersionsProps(Path versionsPropsFile) {
-        if (!Files.exists(versionsPropsFile)) {
+    private static VersionsProps loadVersionsProps(Project rootProject, Path versionsPropsFile) {
+        // Read through a provider, so that the file is an input of the configuration cache
+        byte[] content = rootProject
+                .getProviders()
+                .fileContents(rootProject.getLayout().getProjectDirectory().file(versionsPropsFile.toString()))
+                .getAsBytes()
+                .getOrNull();
+        if (content == null) {
             return VersionsProps.empty();
         }
         log.debug("Configuring constraints from properties file {}", versionsPropsFile);
-        return VersionsProps.loadFromFile(versionsPropsFile);
+        return ParsedFilesCache.register(rootProject.getGradle()).get().readVersionsProps(versionsPropsFile, content);
     }
 
     private static void checkPreconditions() {
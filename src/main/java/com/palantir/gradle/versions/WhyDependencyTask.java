@@ -31,51 +31,69 @@ import java.util.Set;
 import java.util.stream.Stream;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 
-public class WhyDependencyTask extends DefaultTask {
-
-    private final Property<String> hashOption;
-    private final Property<String> dependencyOption;
-    private final Property<FullLockState> fullLockState;
-    private Path lockfile;
+public abstract class WhyDependencyTask extends DefaultTask {
 
     public WhyDependencyTask() {
-        this.hashOption = getProject().getObjects().property(String.class);
-        this.dependencyOption = getProject().getObjects().property(String.class);
-        this.fullLockState = getProject().getObjects().property(FullLockState.class);
-
         setGroup("Help");
         setDescription("Explains what a specific hash in versions.lock means");
     }
 
+    @Internal
+    public abstract Property<String> getHashOption();
+
+    @Internal
+    public abstract Property<String> getDependencyOption();
+
+    @Internal
+    public abstract Property<FullLockState> getFullLockState();
+
+    @Internal
+    public abstract RegularFileProperty getLockFile();
+
+    @Internal
+    public abstract Property<ParsedFilesCache> getParsedFilesCache();
+
     @Option(option = "hash", description = "Hash from versions.lock to explain")
     public final void setHashOption(String string) {
-        hashOption.set(string);
+        getHashOption().set(string);
     }
 
     @Option(option = "dependency", description = "Dependency from versions.lock to explain")
     public final void setDependencyOption(String string) {
-        dependencyOption.set(string);
+        getDependencyOption().set(string);
     }
 
+    /**
+     * Sets the lock file whose lines are explained.
+     *
+     * @deprecated use {@link #getLockFile()} instead.
+     */
+    @Deprecated
     public final void lockfile(Path path) {
-        this.lockfile = path;
+        getLockFile().set(path.toFile());
     }
 
     public final void fullLockState(Provider<FullLockState> provider) {
-        this.fullLockState.set(provider);
+        getFullLockState().set(provider);
     }
 
     @TaskAction
     public final void taskAction() {
-        // read the lockfile from disk so that we can fail fast without resolving anything if the hash isn't found
-        List<Line> lines = new ConflictSafeLockFile(lockfile).readLocks().allLines();
-
-        if (!hashOption.isPresent() && !dependencyOption.isPresent()) {
+        // Read the lockfile from disk first, so that a missing option is reported, and unmatched lines are skipped,
+        // without getting the full lock state (which needs unifiedClasspath to be resolved)
+        List<Line> lines = getParsedFilesCache()
+                .get()
+                .readLocks(getLockFile().get().getAsFile().toPath())
+                .allLines();
+
+        if (!getHashOption().isPresent() && !getDependencyOption().isPresent()) {
             Optional<String> example =
                     lines.stream().findFirst().map(line -> ", e.g. './gradlew why --dependency " + line.name() + "'");
             throw new ExceptionWithSuggestion(
@@ -83,9 +101,9 @@ public class WhyDependencyTask extends DefaultTask {
                     example.orElse("./gradlew why --dependency <dependency>"));
         }
 
-        Optional<Set<String>> hashes = Optional.ofNullable(hashOption.getOrNull())
+        Optional<Set<String>> hashes = Optional.ofNullable(getHashOption().getOrNull())
                 .map(hash -> Set.copyOf(Splitter.on(",").splitToList(hash)));
-        Optional<String> dependency = Optional.ofNullable(dependencyOption.getOrNull());
+        Optional<String> dependency = Optional.ofNullable(getDependencyOption().getOrNull());
 
         for (Line line : lines) {
             if ((hashes.isPresent() && hashes.get().contains(line.dependentsHash()))
@@ -93,8 +111,8 @@ public class WhyDependencyTask extends DefaultTask {
                 ModuleVersionIdentifier key = MyModuleVersionIdentifier.of(line.group(), line.name(), line.version());
 
                 Optional<Dependents> entry = Stream.of(
-                                fullLockState.get().productionDeps(),
-                                fullLockState.get().testDeps())
+                                getFullLockState().get().productionDeps(),
+                                getFullLockState().get().testDeps())
                         .map(state -> state.get(key))
                         .filter(Objects::nonNull)
                         .findFirst();
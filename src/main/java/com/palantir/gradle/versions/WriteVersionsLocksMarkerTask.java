@@ -18,14 +18,20 @@ package com.palantir.gradle.versions;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 
-public class WriteVersionsLocksMarkerTask extends DefaultTask {
+public abstract class WriteVersionsLocksMarkerTask extends DefaultTask {
+    /** Whether the locks were written at configuration time, as worked out from the requested tasks. */
+    @Internal
+    public abstract Property<Boolean> getLocksWritten();
+
     @TaskAction
     public final void checkWriteLocksShouldBeRunning() {
         // Check that our task name matcher for writeVersionsLocks is actually matching up the Gradle one - if this
         // task is running but we didn't actually write locks, error out.
-        if (!VersionsLockPlugin.shouldWriteLocks(getProject())) {
+        if (!getLocksWritten().get()) {
             throw new GradleException("This `writeVersionsLocks` marker task has been run, but the versions.lock did "
                     + "not actually get written out at configuration time. Either there is another task "
                     + "dependency on this task, which is not supported (`writeVersionsLocks` must be run as a gradle "
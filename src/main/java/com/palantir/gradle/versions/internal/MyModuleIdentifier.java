@@ -16,13 +16,26 @@
 
 package com.palantir.gradle.versions.internal;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.immutables.value.Value;
 import org.immutables.value.Value.Parameter;
 
-@Value.Immutable
+/**
+ * Interned, so that all the lines, dependents and resolution results of a build that refer to the same module share a
+ * single instance (and a single copy of its group and name).
+ */
+@Value.Immutable(prehash = true)
 @ImmutablesStyle
 public abstract class MyModuleIdentifier implements ModuleIdentifier {
+    /**
+     * Weak, so that identifiers are only shared for as long as something still refers to them, rather than for the
+     * lifetime of the daemon. The entries of a finished build are cleared by the garbage collector, and expunged once
+     * a later build uses the interner.
+     */
+    private static final Interner<MyModuleIdentifier> INTERNER = Interners.newWeakInterner();
+
     @Override
     @Parameter
     public abstract String getGroup();
@@ -37,6 +50,6 @@ public abstract class MyModuleIdentifier implements ModuleIdentifier {
     }
 
     public static MyModuleIdentifier of(String group, String name) {
-        return ImmutableMyModuleIdentifier.of(group, name);
+        return INTERNER.intern(ImmutableMyModuleIdentifier.of(group, name));
     }
 }
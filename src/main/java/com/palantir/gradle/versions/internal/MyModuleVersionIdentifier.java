@@ -16,14 +16,19 @@
 
 package com.palantir.gradle.versions.internal;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.immutables.value.Value;
 import org.immutables.value.Value.Parameter;
 
-@Value.Immutable
+/** Interned like {@link MyModuleIdentifier}, which {@link #getModule()} returns. */
+@Value.Immutable(prehash = true)
 @ImmutablesStyle
 public abstract class MyModuleVersionIdentifier implements ModuleVersionIdentifier {
+    /** Weak for the same reasons as {@link MyModuleIdentifier}'s interner. */
+    private static final Interner<MyModuleVersionIdentifier> INTERNER = Interners.newWeakInterner();
 
     public static MyModuleVersionIdentifier copyOf(ModuleVersionIdentifier moduleVersion) {
         return of(moduleVersion.getGroup(), moduleVersion.getName(), moduleVersion.getVersion());
@@ -47,11 +52,12 @@ public abstract class MyModuleVersionIdentifier implements ModuleVersionIdentifi
     }
 
     @Override
-    public final ModuleIdentifier getModule() {
+    @Value.Lazy
+    public ModuleIdentifier getModule() {
         return MyModuleIdentifier.of(getGroup(), getName());
     }
 
     public static MyModuleVersionIdentifier of(String group, String name, String version) {
-        return ImmutableMyModuleVersionIdentifier.of(group, name, version);
+        return INTERNER.intern(ImmutableMyModuleVersionIdentifier.of(group, name, version));
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.internal;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs independent work for each index of a range, such as computing the lock file line of each component, in
+ * parallel on a fork/join pool of the plugin's own. The work must only touch plain values, never Gradle's model, and
+ * write its result into its own slot, so the output doesn't depend on how the range was split.
+ *
+ * <p>The common pool isn't used, as it is shared with the rest of the build, and tasks waiting on it would take its
+ * threads away from us. Idle workers of this pool exit after a while, so it holds no threads between builds.
+ */
+public final class ParallelIndices {
+    /** Ranges of at most this many indices are run by a single worker. */
+    private static final int LEAF_SIZE = 64;
+
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private ParallelIndices() {}
+
+    /** Calls {@code action} for each index in {@code [0, size)}, in parallel if there are {@code threshold} or more. */
+    public static void forEach(int size, int threshold, IntConsumer action) {
+        if (size < threshold) {
+            for (int index = 0; index < size; index++) {
+                action.accept(index);
+            }
+            return;
+        }
+        POOL.invoke(new Range(0, size, action));
+    }
+
+    private static final class Range extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final IntConsumer action;
+
+        Range(int start, int end, IntConsumer action) {
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= LEAF_SIZE) {
+                for (int index = start; index < end; index++) {
+                    action.accept(index);
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new Range(start, middle, action), new Range(middle, end, action));
+        }
+    }
+}
@@ -16,38 +16,185 @@
 
 package com.palantir.gradle.versions.lockstate;
 
-import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
 import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
-import org.immutables.value.Value;
-import org.immutables.value.Value.Parameter;
 
-@Value.Immutable
-public interface Dependents {
+/**
+ * The version constraints with which a component was requested by its dependents, as plain strings, so that holding
+ * on to a {@link FullLockState} does not retain any of Gradle's resolution result. Constraints are the
+ * {@link VersionConstraint#toString()} of those that aren't no-ops.
+ *
+ * <p>Stored compactly in arrays, as there is one of these for every component of a lock state; the collection views
+ * are only built when asked for.
+ */
+public final class Dependents {
+    private static final String[] EMPTY = new String[0];
+
+    /** Sorted and without duplicates. */
+    private final String[] projectConstraints;
+
+    private final String[] nonProjectDependents;
+    /** The constraints of {@code nonProjectDependents[i]} start at {@code constraintOffsets[i]}. */
+    private final int[] constraintOffsets;
+
+    private final String[] nonProjectConstraints;
+
+    private volatile List<Map.Entry<String, List<String>>> nonProjectConstraintsView;
+
+    private Dependents(
+            String[] projectConstraints,
+            String[] nonProjectDependents,
+            int[] constraintOffsets,
+            String[] nonProjectConstraints) {
+        this.projectConstraints = projectConstraints;
+        this.nonProjectDependents = nonProjectDependents;
+        this.constraintOffsets = constraintOffsets;
+        this.nonProjectConstraints = nonProjectConstraints;
+    }
+
+    public static Dependents of(NavigableMap<ComponentIdentifier, Set<VersionConstraint>> dependents) {
+        Builder builder = builder();
+        dependents.forEach((id, versionConstraints) -> {
+            List<String> constraints = new ArrayList<>(versionConstraints.size());
+            versionConstraints.forEach(versionConstraint -> constraints.add(versionConstraint.toString()));
+            if (id instanceof ProjectComponentIdentifier) {
+                builder.addProjectConstraints(constraints);
+            } else {
+                builder.addConstraints(LockStates.formatComponentIdentifier(id), constraints);
+            }
+        });
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Constraints from all dependents that are projects, sorted and without duplicates. */
+    public List<String> projectConstraints() {
+        return Collections.unmodifiableList(Arrays.asList(projectConstraints));
+    }
 
-    @Parameter
-    NavigableMap<ComponentIdentifier, Set<VersionConstraint>> get();
+    /**
+     * Constraints from each other dependent, along with its {@link LockStates#formatComponentIdentifier formatted
+     * identifier}, in the order of the map the dependents were created from. Distinct dependents that are formatted
+     * alike are listed separately.
+     */
+    public List<Map.Entry<String, List<String>>> nonProjectConstraints() {
+        List<Map.Entry<String, List<String>>> view = nonProjectConstraintsView;
+        if (view == null) {
+            ImmutableList.Builder<Map.Entry<String, List<String>>> builder =
+                    ImmutableList.builderWithExpectedSize(nonProjectDependents.length);
+            for (int i = 0; i < nonProjectDependents.length; i++) {
+                builder.add(Maps.immutableEntry(nonProjectDependents[i], nonProjectConstraints(i)));
+            }
+            view = builder.build();
+            nonProjectConstraintsView = view;
+        }
+        return view;
+    }
+
+    int numNonProjectDependents() {
+        return nonProjectDependents.length;
+    }
+
+    String nonProjectDependent(int index) {
+        return nonProjectDependents[index];
+    }
+
+    List<String> nonProjectConstraints(int index) {
+        return Collections.unmodifiableList(
+                Arrays.asList(nonProjectConstraints).subList(constraintOffsets[index], constraintOffsets[index + 1]));
+    }
 
-    @Value.Derived
-    default NavigableSet<VersionConstraint> projectConstraints() {
-        return Maps.filterKeys(get(), k -> k instanceof ProjectComponentIdentifier).values().stream()
-                .flatMap(Set::stream)
-                .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.comparing(VersionConstraint::toString)));
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Dependents)) {
+            return false;
+        }
+        Dependents that = (Dependents) other;
+        return Arrays.equals(projectConstraints, that.projectConstraints)
+                && Arrays.equals(nonProjectDependents, that.nonProjectDependents)
+                && Arrays.equals(constraintOffsets, that.constraintOffsets)
+                && Arrays.equals(nonProjectConstraints, that.nonProjectConstraints);
     }
 
-    @Value.Derived
-    default Map<ComponentIdentifier, Set<VersionConstraint>> nonProjectConstraints() {
-        return Maps.filterKeys(get(), k -> !(k instanceof ProjectComponentIdentifier));
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(projectConstraints);
+        result = 31 * result + Arrays.hashCode(nonProjectDependents);
+        return 31 * result + Arrays.hashCode(nonProjectConstraints);
     }
 
-    static Dependents of(NavigableMap<ComponentIdentifier, Set<VersionConstraint>> dependents) {
-        return ImmutableDependents.of(dependents);
+    @Override
+    public String toString() {
+        return "Dependents{projectConstraints=" + projectConstraints() + ", nonProjectConstraints="
+                + nonProjectConstraints() + "}";
+    }
+
+    /**
+     * Collects constraints as {@link VersionConstraint#toString()} strings. Empty strings are no-op constraints and
+     * are dropped.
+     */
+    public static final class Builder {
+        private final TreeSet<String> projectConstraints = new TreeSet<>();
+        private final List<String> nonProjectDependents = new ArrayList<>();
+        private final List<String> nonProjectConstraints = new ArrayList<>();
+        private final List<Integer> constraintOffsets = new ArrayList<>();
+
+        private Builder() {}
+
+        /** Adds the constraints from a dependent that is a project. */
+        public Builder addProjectConstraints(Collection<String> constraints) {
+            addNonEmpty(constraints, projectConstraints);
+            return this;
+        }
+
+        /**
+         * Adds all the constraints from another dependent, which is listed as {@code dependent}, in the order
+         * dependents are added. Each call adds a separate dependent, as different components may be formatted alike.
+         */
+        public Builder addConstraints(String dependent, Collection<String> constraints) {
+            nonProjectDependents.add(dependent);
+            constraintOffsets.add(nonProjectConstraints.size());
+            addNonEmpty(constraints, nonProjectConstraints);
+            return this;
+        }
+
+        public Dependents build() {
+            int[] offsets = new int[nonProjectDependents.size() + 1];
+            for (int i = 0; i < constraintOffsets.size(); i++) {
+                offsets[i] = constraintOffsets.get(i);
+            }
+            offsets[nonProjectDependents.size()] = nonProjectConstraints.size();
+            return new Dependents(
+                    projectConstraints.toArray(EMPTY),
+                    nonProjectDependents.toArray(EMPTY),
+                    offsets,
+                    nonProjectConstraints.toArray(EMPTY));
+        }
+
+        private static void addNonEmpty(Collection<String> constraints, Collection<String> into) {
+            for (String constraint : constraints) {
+                if (!constraint.isEmpty()) {
+                    into.add(LockStates.internConstraint(constraint));
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import com.google.common.hash.HashCode;
+import java.util.List;
+import java.util.zip.Adler32;
+
+/**
+ * Computes the number of dependents and the dependents hash of a lock file line, without building the strings of
+ * {@link LockStates#prettyPrintConstraints}. The UTF-8 bytes of what would be those strings are fed straight into an
+ * adler32 checksum, so the result is identical to hashing each pretty-printed string with
+ * {@link com.google.common.hash.Hashing#adler32()}.
+ *
+ * <p>Instances are reused and not thread safe; use {@link #forCurrentThread()}.
+ */
+final class DependentsHasher {
+    private static final ThreadLocal<DependentsHasher> HASHERS = ThreadLocal.withInitial(DependentsHasher::new);
+    private static final int BUFFER_SIZE = 512;
+    /** Longest UTF-8 encoding of a single code point. */
+    private static final int MAX_BYTES_PER_CODE_POINT = 4;
+
+    private final Adler32 checksum = new Adler32();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int count;
+
+    private DependentsHasher() {}
+
+    static DependentsHasher forCurrentThread() {
+        DependentsHasher hasher = HASHERS.get();
+        hasher.checksum.reset();
+        hasher.position = 0;
+        hasher.count = 0;
+        return hasher;
+    }
+
+    /** Feeds what would be the pretty-printed strings of {@code dependents}. */
+    DependentsHasher putDependents(Dependents dependents) {
+        putEntry("projects", dependents.projectConstraints());
+        for (int i = 0; i < dependents.numNonProjectDependents(); i++) {
+            putEntry(dependents.nonProjectDependent(i), dependents.nonProjectConstraints(i));
+        }
+        return this;
+    }
+
+    /** Number of pretty-printed strings fed so far. */
+    int count() {
+        return count;
+    }
+
+    /** Same format as {@link HashCode#toString()} of the equivalent {@link com.google.common.hash.Hasher}. */
+    String hash() {
+        flush();
+        return HashCode.fromInt((int) checksum.getValue()).toString();
+    }
+
+    /** Feeds {@code "key -> constraint"} or {@code "key -> {constraint, ...}"}, unless there are no constraints. */
+    private void putEntry(String key, List<String> constraints) {
+        if (constraints.isEmpty()) {
+            return;
+        }
+
+        count++;
+        putString(key);
+        putString(" -> ");
+        if (constraints.size() == 1) {
+            putConstraint(constraints.get(0));
+            return;
+        }
+        putAscii('{');
+        for (int i = 0; i < constraints.size(); i++) {
+            if (i > 0) {
+                putString(", ");
+            }
+            putConstraint(constraints.get(i));
+        }
+        putAscii('}');
+    }
+
+    /** Same as {@code LockStates.versionConstraintToString}, which strips the brackets of ranges like {@code [1.2]}. */
+    private void putConstraint(String constraint) {
+        if (isSingleVersionRange(constraint)) {
+            putString(constraint, 1, constraint.length() - 1);
+        } else {
+            putString(constraint, 0, constraint.length());
+        }
+    }
+
+    /** Equivalent to matching {@code \[[^,]+\]}. */
+    private static boolean isSingleVersionRange(String constraint) {
+        return constraint.length() >= 3
+                && constraint.charAt(0) == '['
+                && constraint.charAt(constraint.length() - 1) == ']'
+                && constraint.indexOf(',') < 0;
+    }
+
+    private void putString(String string) {
+        putString(string, 0, string.length());
+    }
+
+    /**
+     * Encodes {@code string[start, end)} as UTF-8 the way {@link String#getBytes} does, including replacing unpaired
+     * surrogates with {@code '?'}.
+     */
+    private void putString(String string, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (position > BUFFER_SIZE - MAX_BYTES_PER_CODE_POINT) {
+                flush();
+            }
+            char ch = string.charAt(i);
+            if (ch < 0x80) {
+                buffer[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (ch >> 6));
+                buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+            } else if (Character.isSurrogate(ch)) {
+                if (Character.isHighSurrogate(ch) && i + 1 < end && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(ch, string.charAt(++i));
+                    buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    buffer[position++] = '?';
+                }
+            } else {
+                buffer[position++] = (byte) (0xe0 | (ch >> 12));
+                buffer[position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+            }
+        }
+    }
+
+    private void putAscii(char ch) {
+        if (position == BUFFER_SIZE) {
+            flush();
+        }
+        buffer[position++] = (byte) ch;
+    }
+
+    private void flush() {
+        checksum.update(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -18,7 +18,6 @@ package com.palantir.gradle.versions.lockstate;
 
 import com.palantir.gradle.versions.internal.MyModuleVersionIdentifier;
 import java.util.Map;
-import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.artifacts.result.ResolvedDependencyResult;
@@ -28,8 +27,8 @@ import org.immutables.value.Value;
 public interface FullLockState {
     /**
      * Map of a {@link ResolvedComponentResult#getModuleVersion resolved component's module & version} -&gt;
-     * {@link ComponentIdentifier} of {@link ResolvedDependencyResult#getFrom component that requested it} -&gt;
-     * {@link ModuleComponentSelector#getVersionConstraint version constraint for that dependency}.
+     * {@link Dependents} made of the {@link ResolvedDependencyResult#getFrom components that requested it} and the
+     * {@link ModuleComponentSelector#getVersionConstraint version constraints for those dependencies}.
      */
     Map<MyModuleVersionIdentifier, Dependents> productionDeps();
 
@@ -0,0 +1,125 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import com.google.common.base.Suppliers;
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * {@link LockState} backed by one {@link LineTable} per section. Each section is only computed when first accessed, so
+ * e.g. a lock file's test section is never parsed by consumers of the production section.
+ */
+final class LazyLockState implements LockState {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Supplier<LineTable> production;
+    private final transient Supplier<LineTable> test;
+
+    LazyLockState(Supplier<LineTable> production, Supplier<LineTable> test) {
+        this.production = Suppliers.memoize(production::get);
+        this.test = Suppliers.memoize(test::get);
+    }
+
+    @Override
+    public List<Line> productionLines() {
+        return production.get().lines();
+    }
+
+    @Override
+    public List<Line> testLines() {
+        return test.get().lines();
+    }
+
+    @Override
+    public List<Line> allLines() {
+        return new AllLinesView(production.get(), test.get());
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> productionLinesByModuleIdentifier() {
+        return production.get().linesByModuleIdentifier();
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> testLinesByModuleIdentifier() {
+        return test.get().linesByModuleIdentifier();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other
+                || (other instanceof LockState
+                        && productionLines().equals(((LockState) other).productionLines())
+                        && testLines().equals(((LockState) other).testLines()));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * productionLines().hashCode() + testLines().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LockState{productionLines=" + productionLines() + ", testLines=" + testLines() + "}";
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(production.get(), test.get());
+    }
+
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final LineTable production;
+        private final LineTable test;
+
+        SerializedForm(LineTable production, LineTable test) {
+            this.production = production;
+            this.test = test;
+        }
+
+        private Object readResolve() {
+            return new LazyLockState(() -> production, () -> test);
+        }
+    }
+
+    private static final class AllLinesView extends AbstractList<Line> implements RandomAccess {
+        private final LineTable production;
+        private final LineTable test;
+
+        AllLinesView(LineTable production, LineTable test) {
+            this.production = production;
+            this.test = test;
+        }
+
+        @Override
+        public Line get(int index) {
+            return index < production.size() ? production.line(index) : test.line(index - production.size());
+        }
+
+        @Override
+        public int size() {
+            return production.size() + test.size();
+        }
+    }
+}
@@ -46,7 +46,7 @@ public interface Line extends Serializable {
 
     @Lazy
     default String stringRepresentation() {
-        return String.format(
-                "%s:%s:%s (%s constraints: %s)", group(), name(), version(), numDependents(), dependentsHash());
+        return group() + ":" + name() + ":" + version() + " (" + numDependents() + " constraints: " + dependentsHash()
+                + ")";
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar storage of the lines of one section of a lock file. Groups are stored once in a table, the other columns in
+ * plain arrays, and the usual 8 hex digit dependents hash as an {@code int}. {@link Line}s are only materialized when
+ * accessed through {@link #lines()} or {@link #linesByModuleIdentifier()}.
+ */
+public final class LineTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int HASH_LENGTH = 8;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final LineTable EMPTY = new Builder().build();
+
+    private final String[] groups;
+    private final int[] groupIndices;
+    private final String[] names;
+    private final String[] versions;
+    private final int[] numDependents;
+    private final int[] hashes;
+    /** Hashes which are not exactly 8 lowercase hex digits, or {@code null} if there are none. */
+    private final String[] irregularHashes;
+    /** Line indices in {@link #compareModules} order, or {@code null} if the lines are already in that order. */
+    private final int[] sortedOrder;
+
+    private final boolean hasDuplicateModules;
+
+    private transient volatile NavigableMap<MyModuleIdentifier, Line> linesByModuleIdentifier;
+
+    private LineTable(Builder builder) {
+        int size = builder.size;
+        this.groups = builder.groups.toArray(new String[0]);
+        this.groupIndices = Arrays.copyOf(builder.groupIndices, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.versions = Arrays.copyOf(builder.versions, size);
+        this.numDependents = Arrays.copyOf(builder.numDependents, size);
+        this.hashes = Arrays.copyOf(builder.hashes, size);
+        this.irregularHashes = builder.irregularHashes == null ? null : Arrays.copyOf(builder.irregularHashes, size);
+        this.sortedOrder = isSorted() ? null : sort();
+        this.hasDuplicateModules = hasDuplicates();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static LineTable empty() {
+        return EMPTY;
+    }
+
+    public static LineTable copyOf(Stream<Line> lines) {
+        Builder builder = new Builder();
+        lines.forEach(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String group(int index) {
+        return groups[groupIndices[index]];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public String version(int index) {
+        return versions[index];
+    }
+
+    public int numDependents(int index) {
+        return numDependents[index];
+    }
+
+    public String dependentsHash(int index) {
+        if (irregularHashes != null && irregularHashes[index] != null) {
+            return irregularHashes[index];
+        }
+        int hash = hashes[index];
+        char[] chars = new char[HASH_LENGTH];
+        for (int i = HASH_LENGTH - 1; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[hash & 0xf];
+            hash >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    public Line line(int index) {
+        return ImmutableLine.of(group(index), name(index), version(index), numDependents(index), dependentsHash(index));
+    }
+
+    /** The lines in their original order, as a view. */
+    public List<Line> lines() {
+        return new LinesView();
+    }
+
+    /** Mapping from {@code group:artifact} to the full line, as a view. */
+    public NavigableMap<MyModuleIdentifier, Line> linesByModuleIdentifier() {
+        NavigableMap<MyModuleIdentifier, Line> result = linesByModuleIdentifier;
+        if (result == null) {
+            if (hasDuplicateModules) {
+                throw new IllegalArgumentException("Multiple entries with the same module in lock state: " + lines());
+            }
+            result = new LinesByModuleView(this);
+            linesByModuleIdentifier = result;
+        }
+        return result;
+    }
+
+    /** Returns the index of the line at {@code position} in module order. */
+    int lineAtPosition(int position) {
+        return sortedOrder == null ? position : sortedOrder[position];
+    }
+
+    /**
+     * Binary searches the lines in module order, returning the position of {@code group:name}, or
+     * {@code -(insertion point) - 1} if it is absent.
+     */
+    int search(String group, String name) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int line = lineAtPosition(mid);
+            int comparison = group(line).compareTo(group);
+            if (comparison == 0) {
+                comparison = name(line).compareTo(name);
+            }
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /** Same order as {@link com.palantir.gradle.versions.GradleComparators#MODULE_IDENTIFIER_COMPARATOR}. */
+    private int compareModules(int left, int right) {
+        int comparison = group(left).compareTo(group(right));
+        return comparison != 0 ? comparison : name(left).compareTo(name(right));
+    }
+
+    private boolean isSorted() {
+        for (int i = 1; i < size(); i++) {
+            if (compareModules(i - 1, i) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] sort() {
+        return IntStream.range(0, size())
+                .boxed()
+                .sorted(this::compareModules)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private boolean hasDuplicates() {
+        for (int position = 1; position < size(); position++) {
+            if (compareModules(lineAtPosition(position - 1), lineAtPosition(position)) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRegularHash(String hash) {
+        if (hash.length() != HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            char ch = hash.charAt(i);
+            if (!((ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class LinesView extends AbstractList<Line> implements RandomAccess {
+        @Override
+        public Line get(int index) {
+            return line(index);
+        }
+
+        @Override
+        public int size() {
+            return LineTable.this.size();
+        }
+    }
+
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Map<String, Integer> groupIndex = new HashMap<>();
+        private final List<String> groups = new ArrayList<>();
+        private int[] groupIndices = new int[INITIAL_CAPACITY];
+        private String[] names = new String[INITIAL_CAPACITY];
+        private String[] versions = new String[INITIAL_CAPACITY];
+        private int[] numDependents = new int[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private String[] irregularHashes;
+        private int size;
+
+        private Builder() {}
+
+        public Builder add(Line line) {
+            return add(line.group(), line.name(), line.version(), line.numDependents(), line.dependentsHash());
+        }
+
+        public Builder add(String group, String name, String version, int numDependentsOfLine, String dependentsHash) {
+            ensureCapacity();
+            groupIndices[size] = groupIndex.computeIfAbsent(group, newGroup -> {
+                groups.add(newGroup);
+                return groups.size() - 1;
+            });
+            names[size] = name;
+            versions[size] = version;
+            numDependents[size] = numDependentsOfLine;
+            if (isRegularHash(dependentsHash)) {
+                hashes[size] = Integer.parseUnsignedInt(dependentsHash, 16);
+            } else {
+                if (irregularHashes == null) {
+                    irregularHashes = new String[names.length];
+                }
+                irregularHashes[size] = dependentsHash;
+            }
+            size++;
+            return this;
+        }
+
+        public LineTable build() {
+            return new LineTable(this);
+        }
+
+        private void ensureCapacity() {
+            if (size < names.length) {
+                return;
+            }
+            int capacity = names.length * 2;
+            groupIndices = Arrays.copyOf(groupIndices, capacity);
+            names = Arrays.copyOf(names, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            numDependents = Arrays.copyOf(numDependents, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            if (irregularHashes != null) {
+                irregularHashes = Arrays.copyOf(irregularHashes, capacity);
+            }
+        }
+    }
+}
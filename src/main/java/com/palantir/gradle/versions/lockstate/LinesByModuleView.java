@@ -0,0 +1,249 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import com.palantir.gradle.versions.GradleComparators;
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+import org.gradle.api.artifacts.ModuleIdentifier;
+
+/**
+ * Read-only {@link NavigableMap} view of a {@link LineTable} in module order. Lookups and iteration work directly on
+ * the table; the rarely used sub-map and descending views are served by a copy that is only built on demand.
+ */
+final class LinesByModuleView extends AbstractMap<MyModuleIdentifier, Line>
+        implements NavigableMap<MyModuleIdentifier, Line> {
+    private final LineTable table;
+    private final Supplier<NavigableMap<MyModuleIdentifier, Line>> materialized;
+
+    LinesByModuleView(LineTable table) {
+        this.table = table;
+        this.materialized = Suppliers.memoize(() -> ImmutableSortedMap.copyOfSorted(this));
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return position(key) >= 0;
+    }
+
+    @Override
+    public Line get(Object key) {
+        int position = position(key);
+        return position >= 0 ? table.line(table.lineAtPosition(position)) : null;
+    }
+
+    @Override
+    public Set<Entry<MyModuleIdentifier, Line>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<MyModuleIdentifier, Line>> iterator() {
+                return new Iterator<>() {
+                    private int position = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < table.size();
+                    }
+
+                    @Override
+                    public Entry<MyModuleIdentifier, Line> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return entryAt(position++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return table.size();
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super MyModuleIdentifier> comparator() {
+        return GradleComparators.MODULE_IDENTIFIER_COMPARATOR;
+    }
+
+    @Override
+    public MyModuleIdentifier firstKey() {
+        return keyOrThrow(firstEntry());
+    }
+
+    @Override
+    public MyModuleIdentifier lastKey() {
+        return keyOrThrow(lastEntry());
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> firstEntry() {
+        return entryOrNull(0);
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> lastEntry() {
+        return entryOrNull(table.size() - 1);
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> lowerEntry(MyModuleIdentifier key) {
+        int position = table.search(key.getGroup(), key.getName());
+        return entryOrNull(position >= 0 ? position - 1 : -position - 2);
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> floorEntry(MyModuleIdentifier key) {
+        int position = table.search(key.getGroup(), key.getName());
+        return entryOrNull(position >= 0 ? position : -position - 2);
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> ceilingEntry(MyModuleIdentifier key) {
+        int position = table.search(key.getGroup(), key.getName());
+        return entryOrNull(position >= 0 ? position : -position - 1);
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> higherEntry(MyModuleIdentifier key) {
+        int position = table.search(key.getGroup(), key.getName());
+        return entryOrNull(position >= 0 ? position + 1 : -position - 1);
+    }
+
+    @Override
+    public MyModuleIdentifier lowerKey(MyModuleIdentifier key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public MyModuleIdentifier floorKey(MyModuleIdentifier key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public MyModuleIdentifier ceilingKey(MyModuleIdentifier key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public MyModuleIdentifier higherKey(MyModuleIdentifier key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entry<MyModuleIdentifier, Line> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> descendingMap() {
+        return materialized.get().descendingMap();
+    }
+
+    @Override
+    public NavigableSet<MyModuleIdentifier> navigableKeySet() {
+        return materialized.get().navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<MyModuleIdentifier> descendingKeySet() {
+        return materialized.get().descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> subMap(
+            MyModuleIdentifier fromKey, boolean fromInclusive, MyModuleIdentifier toKey, boolean toInclusive) {
+        return materialized.get().subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> headMap(MyModuleIdentifier toKey, boolean inclusive) {
+        return materialized.get().headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<MyModuleIdentifier, Line> tailMap(MyModuleIdentifier fromKey, boolean inclusive) {
+        return materialized.get().tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<MyModuleIdentifier, Line> subMap(MyModuleIdentifier fromKey, MyModuleIdentifier toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<MyModuleIdentifier, Line> headMap(MyModuleIdentifier toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<MyModuleIdentifier, Line> tailMap(MyModuleIdentifier fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    private int position(Object key) {
+        if (!(key instanceof ModuleIdentifier)) {
+            return -1;
+        }
+        ModuleIdentifier module = (ModuleIdentifier) key;
+        return table.search(module.getGroup(), module.getName());
+    }
+
+    private Entry<MyModuleIdentifier, Line> entryAt(int position) {
+        Line line = table.line(table.lineAtPosition(position));
+        return Maps.immutableEntry(line.identifier(), line);
+    }
+
+    private Entry<MyModuleIdentifier, Line> entryOrNull(int position) {
+        return position >= 0 && position < table.size() ? entryAt(position) : null;
+    }
+
+    private static MyModuleIdentifier keyOrNull(Map.Entry<MyModuleIdentifier, Line> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    private static MyModuleIdentifier keyOrThrow(Map.Entry<MyModuleIdentifier, Line> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+}
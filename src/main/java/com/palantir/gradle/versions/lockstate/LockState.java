@@ -16,55 +16,47 @@
 
 package com.palantir.gradle.versions.lockstate;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSortedMap;
-import com.palantir.gradle.versions.GradleComparators;
 import com.palantir.gradle.versions.internal.MyModuleIdentifier;
 import java.io.Serializable;
 import java.util.List;
 import java.util.NavigableMap;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
-import org.immutables.value.Value;
-import org.immutables.value.Value.Parameter;
 
-/** Holds the state of dependencies that should be written to disk when gradle is invoked with {@code --write-locks}. */
-@Value.Immutable
+/**
+ * Holds the state of dependencies that should be written to disk when gradle is invoked with {@code --write-locks}.
+ *
+ * <p>Lines are stored in a columnar {@link LineTable} per section, and only materialized as {@link Line}s on access.
+ */
 public interface LockState extends Serializable {
 
-    @Parameter
     List<Line> productionLines();
 
-    @Parameter
     List<Line> testLines();
 
-    @Value.Lazy
-    default List<Line> allLines() {
-        return ImmutableList.<Line>builder()
-                .addAll(productionLines())
-                .addAll(testLines())
-                .build();
-    }
+    List<Line> allLines();
 
     /** Mapping from {@code group:artifact} to the full line. */
-    @Value.Lazy
-    default NavigableMap<MyModuleIdentifier, Line> productionLinesByModuleIdentifier() {
-        return productionLines().stream()
-                .collect(ImmutableSortedMap.toImmutableSortedMap(
-                        GradleComparators.MODULE_IDENTIFIER_COMPARATOR, Line::identifier, Function.identity()));
-    }
+    NavigableMap<MyModuleIdentifier, Line> productionLinesByModuleIdentifier();
 
     /** Mapping from {@code group:artifact} to the full line. */
-    @Value.Lazy
-    default NavigableMap<MyModuleIdentifier, Line> testLinesByModuleIdentifier() {
-        return testLines().stream()
-                .collect(ImmutableSortedMap.toImmutableSortedMap(
-                        GradleComparators.MODULE_IDENTIFIER_COMPARATOR, Line::identifier, Function.identity()));
+    NavigableMap<MyModuleIdentifier, Line> testLinesByModuleIdentifier();
+
+    static LockState of(List<Line> productionLines, List<Line> testLines) {
+        return from(productionLines.stream(), testLines.stream());
+    }
+
+    /**
+     * Creates a {@link LockState} whose sections are only computed when first accessed, e.g. so that a lock file's test
+     * section is never parsed by consumers of the production section.
+     */
+    static LockState lazy(Supplier<LineTable> productionLines, Supplier<LineTable> testLines) {
+        return new LazyLockState(productionLines, testLines);
     }
 
     static LockState from(Stream<Line> productionLines, Stream<Line> testLines) {
-        return ImmutableLockState.of(
-                productionLines.collect(Collectors.toList()), testLines.collect(Collectors.toList()));
+        LineTable production = LineTable.copyOf(productionLines);
+        LineTable test = LineTable.copyOf(testLines);
+        return new LazyLockState(() -> production, () -> test);
     }
 }
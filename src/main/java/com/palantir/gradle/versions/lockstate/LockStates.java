@@ -18,22 +18,20 @@ package com.palantir.gradle.versions.lockstate;
 
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
-import com.google.common.hash.HashCode;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import com.palantir.gradle.versions.internal.MyModuleVersionIdentifier;
-import java.nio.charset.StandardCharsets;
-import java.util.Collection;
+import com.palantir.gradle.versions.internal.ParallelIndices;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
-import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.slf4j.Logger;
@@ -43,6 +41,10 @@ public final class LockStates {
     private static final Logger log = LoggerFactory.getLogger(LockStates.class);
 
     private static final Pattern SINGLE_VERSION_RANGE = Pattern.compile("\\[[^,]+\\]");
+    private static final Interner<String> CONSTRAINT_INTERNER = Interners.newWeakInterner();
+
+    /** Number of lines from which they are computed in parallel; below it, that isn't worth the overhead. */
+    private static final int PARALLEL_THRESHOLD = 1000;
 
     private LockStates() {}
 
@@ -53,57 +55,58 @@ public final class LockStates {
         return LockState.from(computeLines(fullLockState.productionDeps()), computeLines(fullLockState.testDeps()));
     }
 
+    /**
+     * Computes the line of every entry, in the iteration order of {@code deps}. Larger maps are hashed in parallel, and
+     * logged once all lines are done so that the log is in the same order either way.
+     */
     public static Stream<Line> computeLines(Map<MyModuleVersionIdentifier, Dependents> deps) {
-        return deps.entrySet().stream().map(entry -> componentWithDependentsToLine(entry.getKey(), entry.getValue()));
+        List<Map.Entry<MyModuleVersionIdentifier, Dependents>> entries = new ArrayList<>(deps.entrySet());
+        Line[] computed = new Line[entries.size()];
+        ParallelIndices.forEach(
+                computed.length,
+                PARALLEL_THRESHOLD,
+                i -> computed[i] = componentWithDependentsToLine(
+                        entries.get(i).getKey(), entries.get(i).getValue()));
+        List<Line> lines = Arrays.asList(computed);
+        if (log.isInfoEnabled()) {
+            Streams.forEachPair(lines.stream(), deps.values().stream(), (line, dependents) -> {
+                log.info("{}: {}", line.stringRepresentation(), prettyPrintConstraints(dependents));
+            });
+        }
+        return lines.stream();
     }
 
     private static Line componentWithDependentsToLine(ModuleVersionIdentifier component, Dependents dependents) {
-        List<String> all = prettyPrintConstraints(dependents);
-
-        Hasher hasher = Hashing.adler32().newHasher();
-        all.forEach(item -> hasher.putString(item, StandardCharsets.UTF_8));
-        HashCode hash = hasher.hash();
-
-        Line line = ImmutableLine.of(
-                component.getGroup(), component.getName(), component.getVersion(), all.size(), hash.toString());
-        log.info("{}: {}", line.stringRepresentation(), all);
-        return line;
+        DependentsHasher hasher = DependentsHasher.forCurrentThread().putDependents(dependents);
+        return ImmutableLine.of(
+                component.getGroup(), component.getName(), component.getVersion(), hasher.count(), hasher.hash());
     }
 
     // turns a collections of VersionConstraints into a nice string like: "group:name -> {0.9, 0.8+}"
     public static List<String> prettyPrintConstraints(Dependents dependents) {
-        Stream<Map.Entry<String, Collection<VersionConstraint>>> constraintEntries = Streams.concat(
-                dependents.projectConstraints().isEmpty()
-                        ? Stream.empty()
-                        : Stream.of(Maps.immutableEntry("projects", dependents.projectConstraints())),
-                dependents.nonProjectConstraints().entrySet().stream()
-                        .map(e -> Maps.immutableEntry(formatComponentIdentifier(e.getKey()), e.getValue())));
+        Stream<Map.Entry<String, List<String>>> constraintEntries = Streams.concat(
+                Stream.of(Maps.immutableEntry("projects", dependents.projectConstraints())),
+                dependents.nonProjectConstraints().stream());
 
         return constraintEntries
+                .filter(e -> !e.getValue().isEmpty())
                 .map(e -> {
                     List<String> constraintsStr = e.getValue().stream()
                             .map(LockStates::versionConstraintToString)
-                            .filter(string -> !string.isEmpty()) // toString is empty if the constraint is a no-op
                             .collect(toList());
 
-                    if (constraintsStr.isEmpty()) {
-                        return Optional.<String>empty();
-                    } else if (constraintsStr.size() == 1) {
-                        return Optional.of(e.getKey() + " -> " + constraintsStr.get(0));
+                    if (constraintsStr.size() == 1) {
+                        return e.getKey() + " -> " + constraintsStr.get(0);
                     } else {
-                        return Optional.of(e.getKey()
+                        return e.getKey()
                                 + " -> "
-                                + constraintsStr.stream().collect(Collectors.joining(", ", "{", "}")));
+                                + constraintsStr.stream().collect(Collectors.joining(", ", "{", "}"));
                     }
                 })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
                 .collect(toList());
     }
 
-    private static String versionConstraintToString(VersionConstraint versionConstraint) {
-        String constraintString = versionConstraint.toString();
-
+    private static String versionConstraintToString(String constraintString) {
         if (SINGLE_VERSION_RANGE.matcher(constraintString).matches()) {
             return constraintString.substring(1, constraintString.length() - 1);
         }
@@ -111,7 +114,13 @@ public final class LockStates {
         return constraintString;
     }
 
-    private static String formatComponentIdentifier(ComponentIdentifier id) {
+    /** Shares the many identical constraint strings between the dependents of a lock state. */
+    static String internConstraint(String constraint) {
+        return CONSTRAINT_INTERNER.intern(constraint);
+    }
+
+    /** How a dependent that isn't a project is listed in {@link Dependents}. */
+    public static String formatComponentIdentifier(ComponentIdentifier id) {
         if (id instanceof ModuleComponentIdentifier) {
             // We don't include the version, as conflicts in the version would show up on the line for that version.
             return ((ModuleComponentIdentifier) id).getModuleIdentifier().toString();
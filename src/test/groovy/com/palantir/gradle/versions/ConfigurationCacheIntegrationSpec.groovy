@@ -0,0 +1,150 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions
+
+import org.gradle.testkit.runner.BuildResult
+import spock.lang.Unroll
+
+import static com.palantir.gradle.versions.GradleTestVersions.GRADLE_VERSIONS
+
+/**
+ * Runs each of the plugin's tasks twice with the configuration cache: once to store an entry and once to reuse it.
+ */
+@Unroll
+class ConfigurationCacheIntegrationSpec extends IntegrationSpec {
+
+    static def PLUGIN_NAME = "com.palantir.consistent-versions"
+
+    void setup() {
+        File mavenRepo = generateMavenRepo(
+                'com.example:dependency-of-upstream:1.2.3 -> com.example:transitive:1.0.0',
+                'com.example:dependency-of-downstream:1.2.3',
+                'com.example:transitive:1.0.0',
+                'com.example:transitive:1.1.0',
+        )
+
+        buildFile.text = """
+            plugins {
+                id '${PLUGIN_NAME}'
+            }
+            allprojects {
+                repositories {
+                    maven { url "file:///${mavenRepo.getAbsolutePath()}" }
+                }
+            }
+        """.stripIndent()
+
+        file('versions.props').text = """
+            com.example:dependency-of-upstream = 1.2.3
+            com.example:dependency-of-downstream = 1.2.3
+        """.stripIndent()
+
+        addSubproject('upstream', """
+            plugins {
+                id 'java'
+            }
+            dependencies {
+                implementation 'com.example:dependency-of-upstream'
+            }
+        """.stripIndent())
+
+        addSubproject('downstream', """
+            plugins {
+                id 'java'
+            }
+            dependencies {
+                implementation project(':upstream')
+                implementation 'com.example:dependency-of-downstream'
+            }
+        """.stripIndent())
+    }
+
+    def '#gradleVersionNumber: #task reuses the configuration cache'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        runTasks('--write-locks')
+
+        when:
+        BuildResult first = runTasks(*task.split(' '), '--configuration-cache')
+        BuildResult second = runTasks(*task.split(' '), '--configuration-cache')
+
+        then:
+        first.output.contains('Configuration cache entry stored.')
+        second.output.contains('Reusing configuration cache.')
+
+        where:
+        [gradleVersionNumber, task] << [
+                GRADLE_VERSIONS,
+                [
+                        'verifyLocks',
+                        'why --dependency transitive',
+                        'checkUnusedConstraints',
+                        'checkOverbroadConstraints',
+                ]
+        ].combinations()
+    }
+
+    def '#gradleVersionNumber: verifyLocks notices a changed lock file when reusing the configuration cache'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        runTasks('--write-locks')
+        runTasks('verifyLocks', '--configuration-cache')
+
+        when:
+        file('versions.lock').text = file('versions.lock').text.replace('transitive:1.0.0', 'transitive:0.9.0')
+
+        then:
+        runTasksAndFail('verifyLocks', '--configuration-cache')
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
+    def '#gradleVersionNumber: verifyLocks notices a changed versions.props when reusing the configuration cache'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        runTasks('--write-locks')
+        runTasks('verifyLocks', '--configuration-cache')
+
+        when:
+        file('versions.props') << 'com.example:transitive = 1.1.0\n'
+        BuildResult result = runTasksAndFail('verifyLocks', '--configuration-cache')
+
+        then:
+        !result.output.contains('Reusing configuration cache.')
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
+    def '#gradleVersionNumber: writeVersionsLocks writes the locks every time it runs with the configuration cache'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        runTasks('writeVersionsLocks', '--configuration-cache')
+
+        when:
+        file('versions.lock').delete()
+        BuildResult result = runTasks('writeVersionsLocks', '--configuration-cache')
+
+        then:
+        !result.output.contains('Reusing configuration cache.')
+        file('versions.lock').exists()
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+}
@@ -16,12 +16,26 @@
 
 package com.palantir.gradle.versions
 
+import com.palantir.gradle.failurereports.exceptions.ExceptionWithSuggestion
+import com.palantir.gradle.versions.lockstate.FullLockState
+import com.palantir.gradle.versions.lockstate.ImmutableLine
 import com.palantir.gradle.versions.lockstate.LockState
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.Path
 import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
+import java.nio.file.attribute.PosixFilePermissions
+import org.gradle.api.services.BuildServiceParameters
+import spock.lang.Requires
 import spock.lang.Specification
+import spock.lang.TempDir
 
 class ConflictSafeLockFileSpec extends Specification {
 
+    @TempDir
+    Path tempDir
+
     def 'should parse a lock file successfully'() {
         def file = new ConflictSafeLockFile(Paths.get("src/test/resources/sample-versions.lock"))
 
@@ -32,4 +46,190 @@ class ConflictSafeLockFileSpec extends Specification {
         locks.productionLinesByModuleIdentifier().size() == 27
         locks.testLinesByModuleIdentifier().size() == 16
     }
+
+    def 'should parse lines and sections regardless of line endings'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        Files.writeString(lockfile, [
+                '# Run ./gradlew writeVersionsLocks to regenerate this file',
+                'com.google.guava:guava:28.0-jre (2 constraints: 8a1e0f9b)',
+                '  # indented comment',
+                'org.slf4j:slf4j-api:1.7.25 (0 constraints: 0000000)',
+                '',
+                '[Test dependencies]',
+                'junit:junit:4.12 (1 constraints: 4734a44f)',
+        ].join(separator) + separator)
+
+        when:
+        LockState locks = new ConflictSafeLockFile(lockfile).readLocks()
+
+        then:
+        locks.productionLines() == [
+                ImmutableLine.of('com.google.guava', 'guava', '28.0-jre', 2, '8a1e0f9b'),
+                ImmutableLine.of('org.slf4j', 'slf4j-api', '1.7.25', 0, '0000000'),
+        ]
+        locks.testLines() == [ImmutableLine.of('junit', 'junit', '4.12', 1, '4734a44f')]
+
+        where:
+        separator << ['\n', '\r\n', '\r']
+    }
+
+    def 'should fail on unparseable lines with the offending line'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        Files.writeString(lockfile, 'com.google.guava:guava:28.0-jre (2 constraints: 8a1e0f9b)\n'
+                + 'com.google.guava:guava 28.0-jre (2 constraints: 8a1e0f9b)\n')
+
+        when:
+        new ConflictSafeLockFile(lockfile).readLocks()
+
+        then:
+        def e = thrown(ExceptionWithSuggestion)
+        e.message == "Found unparseable line in dependency lock file '${lockfile}': ".toString() +
+                'com.google.guava:guava 28.0-jre (2 constraints: 8a1e0f9b)'
+    }
+
+    def 'should only parse the test section when it is accessed'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        Files.writeString(lockfile, 'org.slf4j:slf4j-api:1.7.25 (0 constraints: 0000000)\n'
+                + '\n'
+                + '[Test dependencies]\n'
+                + 'junit:junit 4.12 (1 constraints: 4734a44f)\n')
+
+        when:
+        LockState locks = newParsedFilesCache().readLocks(lockfile)
+
+        then:
+        locks.productionLinesByModuleIdentifier().values() as List == [
+                ImmutableLine.of('org.slf4j', 'slf4j-api', '1.7.25', 0, '0000000')]
+
+        when:
+        locks.testLines()
+
+        then:
+        def e = thrown(ExceptionWithSuggestion)
+        e.message.endsWith('junit:junit 4.12 (1 constraints: 4734a44f)')
+    }
+
+    def 'should report unparseable lines against the lock file read by the current build'() {
+        def content = ('org.slf4j:slf4j-api:1.7.25 (0 constraints: 0000000)\n'
+                + '\n'
+                + '[Test dependencies]\n'
+                + 'junit:junit 4.13 (1 constraints: 4734a44f)\n')
+        def first = tempDir.resolve('first/versions.lock')
+        def second = tempDir.resolve('second/versions.lock')
+        [first, second].each {
+            Files.createDirectories(it.parent)
+            Files.writeString(it, content)
+        }
+        newParsedFilesCache().readLocks(first).productionLines()
+
+        when:
+        newParsedFilesCache().readLocks(second).testLines()
+
+        then:
+        def e = thrown(ExceptionWithSuggestion)
+        e.message.contains(second.toString())
+    }
+
+    def 'should only parse content that was read elsewhere when it changes'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        def cache = newParsedFilesCache()
+        byte[] first = 'org.slf4j:slf4j-api:1.7.25 (0 constraints: 0000000)\n'.bytes
+        byte[] second = 'org.slf4j:slf4j-api:1.7.26 (0 constraints: 0000000)\n'.bytes
+
+        when:
+        LockState locks = cache.readLocks(lockfile, first)
+
+        then:
+        cache.readLocks(lockfile, first.clone()).is(locks)
+        cache.readLocks(lockfile, second).productionLines() == [
+                ImmutableLine.of('org.slf4j', 'slf4j-api', '1.7.26', 0, '0000000')]
+    }
+
+    def 'should only rewrite the lock file when its content changes'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        def lockFile = new ConflictSafeLockFile(lockfile)
+        def emptyState = FullLockState.builder().build()
+
+        when:
+        boolean firstWrite = lockFile.writeLocks(emptyState)
+        Files.setLastModifiedTime(lockfile, FileTime.fromMillis(0))
+        boolean secondWrite = lockFile.writeLocks(emptyState)
+
+        then:
+        firstWrite
+        !secondWrite
+        Files.getLastModifiedTime(lockfile) == FileTime.fromMillis(0)
+        lockFile.readLocks().allLines().isEmpty()
+        tempDir.toFile().list() as List == ['versions.lock']
+    }
+
+    def 'should stream lines into the lock file and refuse lines out of module order'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        def lockFile = new ConflictSafeLockFile(lockfile)
+        def guava = ImmutableLine.of('com.google.guava', 'guava', '28.0-jre', 2, '8a1e0f9b')
+        def slf4j = ImmutableLine.of('org.slf4j', 'slf4j-api', '1.7.25', 0, '00000000')
+        def junit = ImmutableLine.of('junit', 'junit', '4.12', 1, '4734a44f')
+
+        when:
+        boolean written = lockFile.writeLocks([guava, slf4j].stream(), [junit].stream())
+
+        then:
+        written
+        LockState locks = lockFile.readLocks()
+        locks.productionLines() == [guava, slf4j]
+        locks.testLines() == [junit]
+
+        when:
+        lockFile.writeLocks([slf4j, guava].stream(), [].stream())
+
+        then:
+        thrown(IllegalArgumentException)
+        lockFile.readLocks().productionLines() == [guava, slf4j]
+        tempDir.toFile().list() as List == ['versions.lock']
+    }
+
+    def 'should write through a symlinked lock file and keep the link'() {
+        def shared = Files.createDirectories(tempDir.resolve('shared')).resolve('versions.lock')
+        def checkout = Files.createDirectories(tempDir.resolve('checkout'))
+        def link = Files.createSymbolicLink(checkout.resolve('versions.lock'), Paths.get('../shared/versions.lock'))
+        def guava = ImmutableLine.of('com.google.guava', 'guava', '28.0-jre', 2, '8a1e0f9b')
+
+        when:
+        boolean danglingWrite = new ConflictSafeLockFile(link).writeLocks([].stream(), [].stream())
+        boolean write = new ConflictSafeLockFile(link).writeLocks([guava].stream(), [].stream())
+
+        then:
+        danglingWrite
+        write
+        Files.isSymbolicLink(link)
+        new ConflictSafeLockFile(shared).readLocks().productionLines() == [guava]
+        checkout.toFile().list() as List == ['versions.lock']
+        shared.parent.toFile().list() as List == ['versions.lock']
+    }
+
+    @Requires({ FileSystems.getDefault().supportedFileAttributeViews().contains('posix') })
+    def 'should keep the permissions of the lock file it replaces'() {
+        def lockfile = tempDir.resolve('versions.lock')
+        def lockFile = new ConflictSafeLockFile(lockfile)
+        def permissions = PosixFilePermissions.fromString('rw-rw----')
+        lockFile.writeLocks(FullLockState.builder().build())
+        Files.setPosixFilePermissions(lockfile, permissions)
+
+        when:
+        boolean written = lockFile.writeLocks(
+                [ImmutableLine.of('junit', 'junit', '4.12', 1, '4734a44f')].stream(), [].stream())
+
+        then:
+        written
+        Files.getPosixFilePermissions(lockfile) == permissions
+    }
+
+    private static ParsedFilesCache newParsedFilesCache() {
+        return new ParsedFilesCache() {
+            @Override
+            BuildServiceParameters.None getParameters() {
+                return null
+            }
+        }
+    }
 }
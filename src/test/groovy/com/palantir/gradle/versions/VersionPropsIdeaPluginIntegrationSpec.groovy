@@ -48,7 +48,7 @@ class VersionPropsIdeaPluginIntegrationSpec extends IntegrationSpec {
 
     def "plugin creates gcv-maven-repositories.xml file in .idea folder"() {
         when: 'we run the first time'
-        runTasksSuccessfully('-Didea.active=true')
+        runTasksSuccessfully('idea')
 
         then: 'we generate the correct config'
         def repoFile = new File(projectDir, '.idea/gcv-maven-repositories.xml')
@@ -67,12 +67,21 @@ class VersionPropsIdeaPluginIntegrationSpec extends IntegrationSpec {
         nodeToXmlString(projectNode) == expectedXml
 
         when: 'we run the second time'
-        def secondRun = runTasksSuccessfully('-Didea.active=true')
+        def secondRun = runTasksSuccessfully('idea')
 
         then: "if nothing has changed, the task is then up-to-date"
         secondRun.wasUpToDate(":writeMavenRepositories")
     }
 
+    def "plugin does not add tasks to those requested from the command line"() {
+        when:
+        def result = runTasksSuccessfully('help', '-Didea.active=true')
+
+        then:
+        !result.wasExecuted(':writeMavenRepositories')
+        !new File(projectDir, '.idea/gcv-maven-repositories.xml').exists()
+    }
+
     private static String nodeToXmlString(debugRunConf) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream()
         new XmlNodePrinter(new PrintWriter(baos)).print(debugRunConf)
@@ -145,6 +145,33 @@ class VersionsLockPluginIntegrationSpec extends IntegrationSpec {
         gradleVersionNumber << GRADLE_VERSIONS
     }
 
+    def '#gradleVersionNumber: verifyLocks explains how to create a missing root lock file'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        standardSetup()
+
+        expect:
+        def result = runTasksAndFail('verifyLocks')
+        result.output.readLines().any {
+            it.matches ".*Root lock file '([^']+)' doesn't exist, please run.*"
+        }
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
+    def '#gradleVersionNumber: does not read the root lock file unless something is resolved'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        standardSetup()
+
+        expect:
+        runTasks('help')
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
     def '#gradleVersionNumber: can resolve without a root lock file if lock file is ignored'() {
         setup:
         gradleVersion = gradleVersionNumber
@@ -255,6 +282,62 @@ class VersionsLockPluginIntegrationSpec extends IntegrationSpec {
         gradleVersionNumber << GRADLE_VERSIONS
     }
 
+    def '#gradleVersionNumber: copies excludes, constraints and transitivity of legacy project dependency targets'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+        addSubproject('producer', '''
+            configurations {
+                legacyBase {
+                    exclude group: 'org.slf4j', module: 'slf4j-api'
+                }
+                legacy {
+                    extendsFrom legacyBase
+                }
+                intransitive {
+                    transitive = false
+                }
+            }
+            dependencies {
+                // its slf4j-api 1.7.25 is excluded
+                legacyBase 'ch.qos.logback:logback-classic:1.2.3'
+                constraints {
+                    legacyBase 'org.slf4j:slf4j-api:1.7.24'
+                }
+                intransitive 'org.slf4j:slf4j-api:1.7.11'
+                // its another-transitive-dependency is not resolved
+                intransitive 'org:another-direct-dependency:1.2.3'
+            }
+        '''.stripIndent())
+        addSubproject('consumer', '''
+            apply plugin: 'java'
+            dependencies {
+                implementation project(path: ':producer', configuration: 'legacy')
+                implementation project(path: ':producer', configuration: 'intransitive')
+            }
+        '''.stripIndent())
+
+        when:
+        runTasks('--write-locks')
+        def lockFile = file('versions.lock').text
+
+        then: "The lock file has what resolving the original configurations gives"
+        def lines = lockFile.readLines()
+        lines.any { it.startsWith('ch.qos.logback:logback-classic:1.2.3 ') }
+        lines.any { it.startsWith('org.slf4j:slf4j-api:1.7.24 ') }
+        lines.any { it.startsWith('org:another-direct-dependency:1.2.3 ') }
+        !lockFile.contains('org:another-transitive-dependency')
+
+        when:
+        runTasks('verifyLocks')
+        runTasks('--write-locks')
+
+        then: "The lock file is unchanged"
+        file('versions.lock').text == lockFile
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
     def '#gradleVersionNumber: works on just root project'() {
         setup:
         gradleVersion = gradleVersionNumber
@@ -442,6 +525,53 @@ class VersionsLockPluginIntegrationSpec extends IntegrationSpec {
         gradleVersionNumber << GRADLE_VERSIONS
     }
 
+    def '#gradleVersionNumber: verifyLocks stops comparing after maxDifferences'() {
+        setup:
+        gradleVersion = gradleVersionNumber
+
+        DependencyGraph dependencyGraph = new DependencyGraph("org:a:1.0", "org:b:1.0", "org:c:1.0")
+        GradleDependencyGenerator generator = new GradleDependencyGenerator(dependencyGraph)
+        def mavenRepo = generator.generateTestMavenRepo()
+
+        buildFile << """
+            repositories {
+                maven { url "file:///${mavenRepo.absolutePath}" }
+            }
+
+            subprojects {
+                apply plugin: 'java'
+            }
+
+            tasks.named('verifyLocks') {
+                maxDifferences = 1
+            }
+        """.stripIndent()
+
+        addSubproject('foo', '''
+            dependencies {
+                implementation 'org:a:1.0'
+            }
+        '''.stripIndent())
+
+        runTasks('--write-locks')
+
+        when:
+        file('foo/build.gradle') << """
+            dependencies {
+                implementation 'org:b:1.0'
+                implementation 'org:c:1.0'
+            }
+        """.stripIndent()
+
+        then:
+        def failure = runTasksAndFail('verifyLocks')
+        failure.output.contains("Found dependencies that were not in the lock state: [org:b] " +
+                "(stopped comparing after 1 differences)")
+
+        where:
+        gradleVersionNumber << GRADLE_VERSIONS
+    }
+
     def '#gradleVersionNumber: does not fail if unifiedClasspath is unresolvable'() {
         setup:
         gradleVersion = gradleVersionNumber
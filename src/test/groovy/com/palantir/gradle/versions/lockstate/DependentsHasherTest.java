@@ -0,0 +1,152 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.palantir.gradle.versions.GradleComparators;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.junit.jupiter.api.Test;
+
+class DependentsHasherTest {
+    /** Fragments of constraints and identifiers, covering bracket stripping, no-ops and multi-byte UTF-8. */
+    private static final String[] FRAGMENTS = {
+        "",
+        "1.0",
+        "[1.2]",
+        "[1.2,2.0]",
+        "[,]",
+        "[]",
+        "[x",
+        "x]",
+        "1.+",
+        "latest.release",
+        "[1.0]]",
+        "[[1]",
+        "]",
+        "[",
+        ",",
+        "{",
+        "\n",
+        "\u0000",
+        "\u00e9",
+        "\u07ff",
+        "\u0800",
+        "\u65e5\u672c",
+        "\uffff",
+        "\ud83d\ude00",
+        "\ud83d",
+        "\ude00",
+        "[\ud83d]",
+        "[a\ud83d]"
+    };
+
+    @Test
+    void hash_matches_known_value() {
+        NavigableMap<ComponentIdentifier, Set<VersionConstraint>> dependents =
+                new TreeMap<>(GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR);
+        dependents.put(componentIdentifier(ProjectComponentIdentifier.class, ":project"), constraints("1.0"));
+        dependents.put(componentIdentifier(ComponentIdentifier.class, "org:foo"), constraints("[1.2]", "2.0"));
+
+        DependentsHasher hasher = DependentsHasher.forCurrentThread().putDependents(Dependents.of(dependents));
+
+        // "projects -> 1.0" and "org:foo -> {1.2, 2.0}"
+        assertThat(hasher.count()).isEqualTo(2);
+        assertThat(hasher.hash()).isEqualTo("7b0a13d5");
+    }
+
+    @Test
+    void hash_is_identical_to_hashing_the_pretty_printed_constraints() {
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; i++) {
+            NavigableMap<ComponentIdentifier, Set<VersionConstraint>> map =
+                    new TreeMap<>(GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR);
+            for (int j = random.nextInt(6); j > 0; j--) {
+                ComponentIdentifier id = random.nextInt(3) == 0
+                        ? componentIdentifier(ProjectComponentIdentifier.class, ":p" + random.nextInt(5))
+                        : componentIdentifier(ComponentIdentifier.class, randomString(random) + random.nextInt(1000));
+                Set<VersionConstraint> constraints = new TreeSet<>(Comparator.comparing(VersionConstraint::toString));
+                for (int k = random.nextInt(4); k > 0; k--) {
+                    constraints.add(versionConstraint(randomString(random)));
+                }
+                map.put(id, constraints);
+            }
+            Dependents dependents = Dependents.of(map);
+
+            List<String> prettyPrinted = LockStates.prettyPrintConstraints(dependents);
+            Hasher expected = Hashing.adler32().newHasher();
+            prettyPrinted.forEach(item -> expected.putString(item, StandardCharsets.UTF_8));
+            DependentsHasher actual = DependentsHasher.forCurrentThread().putDependents(dependents);
+
+            assertThat(actual.count()).as("count of %s", prettyPrinted).isEqualTo(prettyPrinted.size());
+            assertThat(actual.hash())
+                    .as("hash of %s", prettyPrinted)
+                    .isEqualTo(expected.hash().toString());
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        if (random.nextInt(50) == 0) {
+            // Longer than the hasher's buffer
+            for (int i = 0; i < 700; i++) {
+                builder.append(random.nextBoolean() ? '\u4e00' : 'a');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Set<VersionConstraint> constraints(String... constraints) {
+        ImmutableSet.Builder<VersionConstraint> builder = ImmutableSet.builder();
+        for (String constraint : constraints) {
+            builder.add(versionConstraint(constraint));
+        }
+        return builder.build();
+    }
+
+    private static ComponentIdentifier componentIdentifier(Class<? extends ComponentIdentifier> type, String name) {
+        ComponentIdentifier id = mock(type, withSettings().stubOnly());
+        doReturn(name).when(id).getDisplayName();
+        return id;
+    }
+
+    private static VersionConstraint versionConstraint(String version) {
+        VersionConstraint constraint =
+                mock(VersionConstraint.class, withSettings().stubOnly());
+        doReturn(version).when(constraint).toString();
+        return constraint;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.lockstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.palantir.gradle.versions.GradleComparators;
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class LineTableTest {
+    private static final List<Line> LINES = List.of(
+            ImmutableLine.of("org.slf4j", "slf4j-api", "1.7.25", 3, "0a1b2c3d"),
+            ImmutableLine.of("com.google.guava", "guava", "28.0-jre", 2, "8a1e0f9b"),
+            ImmutableLine.of("org.slf4j", "jul-to-slf4j", "1.7.25", 0, "0000000"),
+            ImmutableLine.of("com.google.guava", "failureaccess", "1.0.1", 1, "ABCDEF12"));
+
+    @Test
+    void lines_round_trip_in_their_original_order() {
+        LockState lockState = LockState.of(LINES, List.of());
+
+        assertThat(lockState.productionLines()).containsExactlyElementsOf(LINES);
+        assertThat(lockState.allLines()).containsExactlyElementsOf(LINES);
+        assertThat(lockState.testLines()).isEmpty();
+    }
+
+    @Test
+    void map_view_behaves_like_a_sorted_map() {
+        NavigableMap<MyModuleIdentifier, Line> expected = new TreeMap<>(GradleComparators.MODULE_IDENTIFIER_COMPARATOR);
+        LINES.forEach(line -> expected.put(line.identifier(), line));
+
+        NavigableMap<MyModuleIdentifier, Line> view =
+                LockState.of(LINES, List.of()).productionLinesByModuleIdentifier();
+        MyModuleIdentifier absent = MyModuleIdentifier.of("org.slf4j", "log4j-over-slf4j");
+
+        assertThat(view).isEqualTo(expected);
+        assertThat(view.keySet()).containsExactlyElementsOf(expected.keySet());
+        assertThat(view.get(MyModuleIdentifier.of("com.google.guava", "guava"))).isEqualTo(LINES.get(1));
+        assertThat(view.get(absent)).isNull();
+        assertThat(view.floorEntry(absent)).isEqualTo(expected.floorEntry(absent));
+        assertThat(view.higherKey(absent)).isEqualTo(expected.higherKey(absent));
+        assertThat(view.headMap(absent)).isEqualTo(expected.headMap(absent));
+        assertThat(view.descendingMap()).containsExactlyEntriesOf(expected.descendingMap());
+    }
+}
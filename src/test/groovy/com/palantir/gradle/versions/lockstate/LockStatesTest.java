@@ -20,13 +20,21 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.palantir.gradle.versions.GradleComparators;
+import com.palantir.gradle.versions.internal.MyModuleVersionIdentifier;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 import org.gradle.api.artifacts.VersionConstraint;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.junit.jupiter.api.Test;
 
 class LockStatesTest {
@@ -56,6 +64,66 @@ class LockStatesTest {
                         "something:else -> 1.27.1");
     }
 
+    @Test
+    void dependents_are_copied_into_plain_strings() {
+        ProjectComponentIdentifier projectA = mock(ProjectComponentIdentifier.class);
+        when(projectA.getDisplayName()).thenReturn("project :a");
+        ProjectComponentIdentifier projectB = mock(ProjectComponentIdentifier.class);
+        when(projectB.getDisplayName()).thenReturn("project :b");
+        ComponentIdentifier foo = componentIdentifier("org:foo");
+
+        NavigableMap<ComponentIdentifier, Set<VersionConstraint>> dependents =
+                new TreeMap<>(GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR);
+        dependents.put(projectA, ImmutableSet.of(versionConstraint("2.0"), versionConstraint("1.0")));
+        dependents.put(projectB, ImmutableSet.of(versionConstraint("1.0"), versionConstraint("")));
+        dependents.put(foo, ImmutableSet.of(versionConstraint("[1.5]"), versionConstraint("")));
+
+        Dependents copy = Dependents.of(dependents);
+        assertThat(copy.projectConstraints()).containsExactly("1.0", "2.0");
+        assertThat(copy.nonProjectConstraints()).containsExactly(Maps.immutableEntry("org:foo", List.of("[1.5]")));
+        assertThat(LockStates.prettyPrintConstraints(copy)).containsExactly("projects -> {1.0, 2.0}", "org:foo -> 1.5");
+    }
+
+    @Test
+    void dependents_formatted_alike_are_kept_apart() {
+        Dependents dependents = Dependents.builder()
+                .addConstraints("org:foo", List.of("1.0"))
+                .addConstraints("org:foo", List.of("2.0", "1.0"))
+                .build();
+
+        assertThat(dependents.nonProjectConstraints())
+                .containsExactly(
+                        Maps.immutableEntry("org:foo", List.of("1.0")),
+                        Maps.immutableEntry("org:foo", List.of("2.0", "1.0")));
+        assertThat(LockStates.prettyPrintConstraints(dependents))
+                .containsExactly("org:foo -> 1.0", "org:foo -> {2.0, 1.0}");
+    }
+
+    @Test
+    void computes_many_lines_in_the_order_of_the_map() {
+        ComponentIdentifier foo = componentIdentifier("org:foo");
+        ComponentIdentifier bar = componentIdentifier("org:bar");
+        VersionConstraint oneX = versionConstraint("1.+");
+        VersionConstraint two = versionConstraint("2.0");
+
+        Map<MyModuleVersionIdentifier, Dependents> deps = new LinkedHashMap<>();
+        for (int i = 5000; i > 0; i--) {
+            NavigableMap<ComponentIdentifier, Set<VersionConstraint>> dependents =
+                    new TreeMap<>(GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR);
+            dependents.put(foo, i % 2 == 0 ? ImmutableSet.of(oneX) : ImmutableSet.of(oneX, two));
+            if (i % 3 == 0) {
+                dependents.put(bar, ImmutableSet.of(two));
+            }
+            deps.put(MyModuleVersionIdentifier.of("group", "name" + i, "1." + i), Dependents.of(dependents));
+        }
+
+        List<Line> expected = deps.entrySet().stream()
+                .flatMap(entry -> LockStates.computeLines(ImmutableMap.of(entry.getKey(), entry.getValue())))
+                .collect(Collectors.toList());
+        assertThat(LockStates.computeLines(deps)).containsExactlyElementsOf(expected);
+        assertThat(expected.get(0).name()).isEqualTo("name5000");
+    }
+
     private ComponentIdentifier componentIdentifier(String componentIdentifier) {
         ComponentIdentifier grpcApi = mock(ComponentIdentifier.class);
         when(grpcApi.getDisplayName()).thenReturn(componentIdentifier);
@@ -0,0 +1,242 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.palantir.gradle.versions.VersionsLockPlugin.GcvScope;
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentSelector;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.junit.jupiter.api.Test;
+
+class ComponentScopesTest {
+    private static final VersionConstraint VERSION =
+            mock(VersionConstraint.class, withSettings().stubOnly().name("1.0"));
+
+    private final List<ResolvedComponentResult> components = new ArrayList<>();
+    private final Map<ResolvedComponentResult, Set<ResolvedDependencyResult>> dependencies = new HashMap<>();
+    private final Map<ResolvedComponentResult, Set<ResolvedDependencyResult>> dependents = new HashMap<>();
+    private final Map<ResolvedComponentResult, List<Edge>> incoming = new HashMap<>();
+    private final DirectDependencyScopes.Builder directDependencyScopes = new DirectDependencyScopes.Builder();
+
+    @Test
+    void production_takes_priority_over_test() {
+        ResolvedComponentResult project = component(ProjectComponentIdentifier.class);
+        ResolvedComponentResult testOnly = component(ModuleComponentIdentifier.class);
+        ResolvedComponentResult prod = component(ModuleComponentIdentifier.class);
+        ResolvedComponentResult shared = component(ModuleComponentIdentifier.class);
+        direct(project, testOnly, GcvScope.TEST);
+        direct(project, prod, GcvScope.PRODUCTION);
+        dependency(testOnly, shared, false);
+        dependency(prod, shared, false);
+
+        assertThat(compute(directDependencyScopes.build()))
+                .containsEntry(testOnly, GcvScope.TEST)
+                .containsEntry(prod, GcvScope.PRODUCTION)
+                .containsEntry(shared, GcvScope.PRODUCTION);
+    }
+
+    @Test
+    void direct_dependency_recorded_in_both_scopes_is_production() {
+        ResolvedComponentResult project = component(ProjectComponentIdentifier.class);
+        ResolvedComponentResult both = component(ModuleComponentIdentifier.class);
+        MyModuleIdentifier module = dependency(project, both, false);
+        directDependencyScopes.record(module, GcvScope.TEST);
+        directDependencyScopes.record(module, GcvScope.PRODUCTION);
+        directDependencyScopes.record(module, GcvScope.TEST);
+
+        DirectDependencyScopes scopes = directDependencyScopes.build();
+        assertThat(scopes.getScopeFor(module)).hasValue(GcvScope.PRODUCTION);
+        assertThat(compute(scopes)).containsEntry(both, GcvScope.PRODUCTION);
+    }
+
+    @Test
+    void constraints_do_not_propagate_scopes() {
+        ResolvedComponentResult project = component(ProjectComponentIdentifier.class);
+        ResolvedComponentResult direct = component(ModuleComponentIdentifier.class);
+        ResolvedComponentResult constrained = component(ModuleComponentIdentifier.class);
+        direct(project, direct, GcvScope.PRODUCTION);
+        dependency(direct, constrained, true);
+
+        assertThat(compute(directDependencyScopes.build()))
+                .containsEntry(direct, GcvScope.PRODUCTION)
+                .doesNotContainKey(constrained);
+    }
+
+    @Test
+    void matches_a_search_from_every_component_on_a_large_graph() {
+        Random random = new Random(0);
+        int numProjects = 20;
+        int numComponents = 2000;
+        for (int i = 0; i < numComponents; i++) {
+            component(i < numProjects ? ProjectComponentIdentifier.class : ModuleComponentIdentifier.class);
+        }
+        for (int i = 1; i < numProjects; i++) {
+            projectDependency(components.get(0), components.get(i));
+        }
+        for (int i = 0; i < numProjects; i++) {
+            for (int j = 0; j < 20; j++) {
+                int target = numProjects + random.nextInt(numComponents - numProjects);
+                direct(
+                        components.get(i),
+                        components.get(target),
+                        random.nextInt(3) == 0 ? GcvScope.TEST : GcvScope.PRODUCTION);
+            }
+        }
+        for (int i = numProjects; i < numComponents; i++) {
+            for (int j = random.nextInt(4); j > 0; j--) {
+                // Mostly deeper into the graph, but with the odd cycle
+                int target = random.nextInt(10) == 0 || i + 1 == numComponents
+                        ? numProjects + random.nextInt(numComponents - numProjects)
+                        : i + 1 + random.nextInt(Math.min(100, numComponents - i - 1));
+                dependency(components.get(i), components.get(target), random.nextInt(20) == 0);
+            }
+        }
+
+        DirectDependencyScopes scopes = directDependencyScopes.build();
+        Map<ResolvedComponentResult, GcvScope> actual = compute(scopes);
+        Set<ResolvedComponentResult> projects = new HashSet<>(components.subList(0, numProjects));
+
+        for (ResolvedComponentResult component : components.subList(numProjects, numComponents)) {
+            assertThat(actual.get(component))
+                    .as("scope of %s", component)
+                    .isEqualTo(searchDependents(component, scopes, projects));
+        }
+    }
+
+    private Map<ResolvedComponentResult, GcvScope> compute(DirectDependencyScopes scopes) {
+        ResolutionGraph graph = ResolutionGraph.walk(components.get(0));
+        byte[] computed = ComponentScopes.compute(graph, scopes);
+        Map<ResolvedComponentResult, GcvScope> result = new HashMap<>();
+        for (int component = 0; component < graph.size(); component++) {
+            if (computed[component] != ScopeMasks.NONE) {
+                result.put(graph.component(component), ScopeMasks.smallest(computed[component]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reference implementation, which searches backwards from {@code component} to the projects. It walks the edges
+     * recorded by this test rather than the mocks, as it visits every edge once per component.
+     */
+    private GcvScope searchDependents(
+            ResolvedComponentResult component, DirectDependencyScopes scopes, Set<ResolvedComponentResult> projects) {
+        Set<Edge> traversed = new HashSet<>();
+        Deque<Edge> stack = new ArrayDeque<>(incoming.get(component));
+        Set<GcvScope> discovered = EnumSet.noneOf(GcvScope.class);
+        while (!stack.isEmpty()) {
+            Edge dependent = stack.removeFirst();
+            if (dependent.isConstraint || dependent.requested == null || !traversed.add(dependent)) {
+                continue;
+            }
+            if (projects.contains(dependent.from)
+                    && scopes.getScopeFor(dependent.requested).isPresent()) {
+                discovered.add(scopes.getScopeFor(dependent.requested).get());
+            } else {
+                stack.addAll(incoming.get(dependent.from));
+            }
+        }
+        return discovered.stream().min(VersionsLockPlugin.GCV_SCOPE_COMPARATOR).orElse(null);
+    }
+
+    private ResolvedComponentResult component(Class<? extends ComponentIdentifier> idType) {
+        ResolvedComponentResult component =
+                mock(ResolvedComponentResult.class, withSettings().stubOnly().name("component" + components.size()));
+        ComponentIdentifier id = mock(idType, withSettings().stubOnly());
+        doReturn(id).when(component).getId();
+        dependencies.put(component, new LinkedHashSet<>());
+        dependents.put(component, new LinkedHashSet<>());
+        incoming.put(component, new ArrayList<>());
+        doReturn(dependencies.get(component)).when(component).getDependencies();
+        doReturn(dependents.get(component)).when(component).getDependents();
+        components.add(component);
+        return component;
+    }
+
+    private void direct(ResolvedComponentResult project, ResolvedComponentResult target, GcvScope scope) {
+        directDependencyScopes.record(dependency(project, target, false), scope);
+    }
+
+    private void projectDependency(ResolvedComponentResult from, ResolvedComponentResult to) {
+        ResolvedDependencyResult dependency =
+                mock(ResolvedDependencyResult.class, withSettings().stubOnly());
+        doReturn(from).when(dependency).getFrom();
+        doReturn(to).when(dependency).getSelected();
+        doReturn(mock(ProjectComponentSelector.class, withSettings().stubOnly()))
+                .when(dependency)
+                .getRequested();
+        dependencies.get(from).add(dependency);
+        dependents.get(to).add(dependency);
+        incoming.get(to).add(new Edge(from, null, false));
+    }
+
+    private MyModuleIdentifier dependency(
+            ResolvedComponentResult from, ResolvedComponentResult to, boolean isConstraint) {
+        MyModuleIdentifier module = MyModuleIdentifier.of("group", to.toString());
+        ModuleComponentSelector selector =
+                mock(ModuleComponentSelector.class, withSettings().stubOnly());
+        doReturn(module).when(selector).getModuleIdentifier();
+        doReturn(VERSION).when(selector).getVersionConstraint();
+
+        ResolvedDependencyResult dependency =
+                mock(ResolvedDependencyResult.class, withSettings().stubOnly());
+        doReturn(from).when(dependency).getFrom();
+        doReturn(to).when(dependency).getSelected();
+        doReturn(selector).when(dependency).getRequested();
+        doReturn(isConstraint).when(dependency).isConstraint();
+        dependencies.get(from).add(dependency);
+        dependents.get(to).add(dependency);
+        incoming.get(to).add(new Edge(from, module, isConstraint));
+        return module;
+    }
+
+    /** An edge as seen by the reference search, where {@code requested} is null for project dependencies. */
+    private static final class Edge {
+        private final ResolvedComponentResult from;
+        private final ModuleIdentifier requested;
+        private final boolean isConstraint;
+
+        Edge(ResolvedComponentResult from, ModuleIdentifier requested, boolean isConstraint) {
+            this.from = from;
+            this.requested = requested;
+            this.isConstraint = isConstraint;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.palantir.gradle.versions.internal.MyModuleIdentifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.junit.jupiter.api.Test;
+
+class DependentKeysTest {
+    @Test
+    void ranks_match_component_identifier_comparator() {
+        Random random = new Random(0);
+        List<ResolvedComponentResult> components = new ArrayList<>();
+        Set<DependencyResult> rootDependencies = new LinkedHashSet<>();
+        components.add(component(projectIdentifier(":"), rootDependencies));
+        for (int i = 0; i < 300; i++) {
+            ComponentIdentifier id;
+            switch (random.nextInt(3)) {
+                case 0:
+                    id = projectIdentifier(":p" + random.nextInt(20));
+                    break;
+                case 1:
+                    id = identifier(ComponentIdentifier.class, "other" + random.nextInt(5));
+                    break;
+                default:
+                    id = moduleIdentifier("g" + random.nextInt(4), "n" + random.nextInt(6), "1." + random.nextInt(3));
+            }
+            ResolvedComponentResult component = component(id, Set.of());
+            components.add(component);
+            ResolvedDependencyResult dependency =
+                    mock(ResolvedDependencyResult.class, withSettings().stubOnly());
+            doReturn(components.get(0)).when(dependency).getFrom();
+            doReturn(component).when(dependency).getSelected();
+            rootDependencies.add(dependency);
+        }
+
+        ResolutionGraph graph = ResolutionGraph.walk(components.get(0));
+        DependentKeys keys = DependentKeys.compute(graph);
+        for (int left = 0; left < graph.size(); left++) {
+            for (int right = 0; right < graph.size(); right++) {
+                int expected = GradleComparators.COMPONENT_IDENTIFIER_COMPARATOR.compare(
+                        graph.component(left).getId(), graph.component(right).getId());
+                assertThat(Integer.compare(keys.rank(left), keys.rank(right)))
+                        .as(
+                                "%s vs %s",
+                                graph.component(left).getId(),
+                                graph.component(right).getId())
+                        .isEqualTo(Integer.signum(expected));
+            }
+        }
+    }
+
+    private static ResolvedComponentResult component(ComponentIdentifier id, Set<DependencyResult> dependencies) {
+        ResolvedComponentResult component =
+                mock(ResolvedComponentResult.class, withSettings().stubOnly());
+        doReturn(id).when(component).getId();
+        doReturn(dependencies).when(component).getDependencies();
+        return component;
+    }
+
+    private static ComponentIdentifier projectIdentifier(String path) {
+        return identifier(ProjectComponentIdentifier.class, "project " + path);
+    }
+
+    private static ComponentIdentifier moduleIdentifier(String group, String name, String version) {
+        ModuleComponentIdentifier id = identifier(ModuleComponentIdentifier.class, group + ":" + name + ":" + version);
+        doReturn(MyModuleIdentifier.of(group, name)).when(id).getModuleIdentifier();
+        return id;
+    }
+
+    private static <T extends ComponentIdentifier> T identifier(Class<T> type, String displayName) {
+        T id = mock(type, withSettings().stubOnly());
+        doReturn(displayName).when(id).getDisplayName();
+        return id;
+    }
+}
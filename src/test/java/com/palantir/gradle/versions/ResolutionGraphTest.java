@@ -0,0 +1,187 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
+import org.junit.jupiter.api.Test;
+
+class ResolutionGraphTest {
+    private final List<ResolvedComponentResult> components = new ArrayList<>();
+    private final Map<ResolvedComponentResult, Set<DependencyResult>> dependencies = new HashMap<>();
+    private final Map<ResolvedComponentResult, Set<ResolvedDependencyResult>> dependents = new HashMap<>();
+
+    @Test
+    void walk_matches_gradle_traversal_order() {
+        Random random = new Random(0);
+        component(ProjectComponentIdentifier.class);
+        for (int i = 1; i < 500; i++) {
+            component(ModuleComponentIdentifier.class);
+        }
+        for (ResolvedComponentResult from : components) {
+            for (int j = random.nextInt(5); j > 0; j--) {
+                if (random.nextInt(10) == 0) {
+                    unresolved(from);
+                } else {
+                    dependency(from, components.get(1 + random.nextInt(components.size() - 1)), random.nextBoolean());
+                }
+            }
+        }
+
+        List<ResolvedComponentResult> expectedComponents = new ArrayList<>();
+        List<DependencyResult> expectedDependencies = new ArrayList<>();
+        eachElement(components.get(0), expectedComponents, expectedDependencies, new HashSet<>());
+
+        ResolutionGraph graph = ResolutionGraph.walk(components.get(0));
+        List<ResolvedComponentResult> actualComponents = new ArrayList<>();
+        for (int component = 0; component < graph.size(); component++) {
+            actualComponents.add(graph.component(component));
+        }
+        assertThat(actualComponents).containsExactlyElementsOf(expectedComponents);
+        assertThat(graph.unresolved())
+                .containsExactlyElementsOf(expectedDependencies.stream()
+                        .filter(UnresolvedDependencyResult.class::isInstance)
+                        .map(UnresolvedDependencyResult.class::cast)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void edges_match_dependencies_and_dependents() {
+        ResolvedComponentResult project = component(ProjectComponentIdentifier.class);
+        ResolvedComponentResult first = component(ModuleComponentIdentifier.class);
+        ResolvedComponentResult second = component(ModuleComponentIdentifier.class);
+        dependency(project, first, false);
+        dependency(project, second, false);
+        dependency(first, second, true);
+        dependency(second, first, false);
+
+        ResolutionGraph graph = ResolutionGraph.walk(project);
+        assertThat(graph.size()).isEqualTo(3);
+        assertThat(graph.isModule(0)).isFalse();
+        assertThat(graph.isModule(1)).isTrue();
+        for (int component = 0; component < graph.size(); component++) {
+            List<DependencyResult> graphDependencies = new ArrayList<>();
+            for (int edge = graph.dependenciesStart(component); edge < graph.dependenciesEnd(component); edge++) {
+                assertThat(graph.source(edge)).isEqualTo(component);
+                assertThat(graph.component(graph.target(edge)))
+                        .isSameAs(graph.dependency(edge).getSelected());
+                assertThat(graph.isConstraint(edge))
+                        .isEqualTo(graph.dependency(edge).isConstraint());
+                assertThat(graph.isFromProject(edge)).isEqualTo(component == 0);
+                assertThat(graph.isModuleSelector(edge)).isTrue();
+                assertThat(graph.requestedVersion(edge))
+                        .isEqualTo(((ModuleComponentSelector)
+                                        graph.dependency(edge).getRequested())
+                                .getVersionConstraint()
+                                .toString());
+                graphDependencies.add(graph.dependency(edge));
+            }
+            assertThat(graphDependencies)
+                    .containsExactlyElementsOf(graph.component(component).getDependencies());
+
+            Set<ResolvedDependencyResult> graphDependents = new HashSet<>();
+            for (int i = graph.dependentsStart(component); i < graph.dependentsEnd(component); i++) {
+                int edge = graph.dependentEdge(i);
+                assertThat(graph.target(edge)).isEqualTo(component);
+                assertThat(graph.component(graph.source(edge)))
+                        .isSameAs(graph.dependency(edge).getFrom());
+                graphDependents.add(graph.dependency(edge));
+            }
+            assertThat(graphDependents).isEqualTo(graph.component(component).getDependents());
+        }
+    }
+
+    /** Replicates the recursive traversal behind Gradle's getAllComponents() and getAllDependencies(). */
+    private static void eachElement(
+            ResolvedComponentResult component,
+            List<ResolvedComponentResult> componentsVisited,
+            List<DependencyResult> dependenciesVisited,
+            Set<ResolvedComponentResult> visited) {
+        if (!visited.add(component)) {
+            return;
+        }
+        componentsVisited.add(component);
+        for (DependencyResult dependency : component.getDependencies()) {
+            dependenciesVisited.add(dependency);
+            if (dependency instanceof ResolvedDependencyResult) {
+                eachElement(
+                        ((ResolvedDependencyResult) dependency).getSelected(),
+                        componentsVisited,
+                        dependenciesVisited,
+                        visited);
+            }
+        }
+    }
+
+    private ResolvedComponentResult component(Class<? extends ComponentIdentifier> idType) {
+        ResolvedComponentResult component =
+                mock(ResolvedComponentResult.class, withSettings().stubOnly().name("component" + components.size()));
+        ComponentIdentifier id = mock(idType, withSettings().stubOnly());
+        doReturn(id).when(component).getId();
+        dependencies.put(component, new LinkedHashSet<>());
+        dependents.put(component, new LinkedHashSet<>());
+        doReturn(dependencies.get(component)).when(component).getDependencies();
+        doReturn(dependents.get(component)).when(component).getDependents();
+        components.add(component);
+        return component;
+    }
+
+    private void dependency(ResolvedComponentResult from, ResolvedComponentResult to, boolean isConstraint) {
+        ResolvedDependencyResult dependency =
+                mock(ResolvedDependencyResult.class, withSettings().stubOnly());
+        doReturn(from).when(dependency).getFrom();
+        doReturn(to).when(dependency).getSelected();
+        ModuleComponentSelector selector =
+                mock(ModuleComponentSelector.class, withSettings().stubOnly());
+        VersionConstraint version = mock(
+                VersionConstraint.class,
+                withSettings().stubOnly().name("1." + dependencies.get(from).size()));
+        doReturn(version).when(selector).getVersionConstraint();
+        doReturn(selector).when(dependency).getRequested();
+        doReturn(isConstraint).when(dependency).isConstraint();
+        dependencies.get(from).add(dependency);
+        dependents.get(to).add(dependency);
+    }
+
+    private void unresolved(ResolvedComponentResult from) {
+        UnresolvedDependencyResult dependency =
+                mock(UnresolvedDependencyResult.class, withSettings().stubOnly());
+        doReturn(from).when(dependency).getFrom();
+        dependencies.get(from).add(dependency);
+    }
+}
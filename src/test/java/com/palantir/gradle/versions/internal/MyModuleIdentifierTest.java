@@ -0,0 +1,45 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.versions.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class MyModuleIdentifierTest {
+    @Test
+    void equal_module_identifiers_are_the_same_instance() {
+        MyModuleIdentifier first = MyModuleIdentifier.of("com.google.guava", "guava");
+        MyModuleIdentifier second = MyModuleIdentifier.of(new String("com.google.guava"), new String("guava"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getGroup()).isSameAs(first.getGroup());
+        assertThat(MyModuleIdentifier.of("com.google.guava", "failureaccess")).isNotSameAs(first);
+    }
+
+    @Test
+    void module_version_identifiers_share_their_module() {
+        MyModuleVersionIdentifier version = MyModuleVersionIdentifier.of("com.google.guava", "guava", "28.0-jre");
+
+        assertThat(MyModuleVersionIdentifier.of("com.google.guava", "guava", "28.0-jre"))
+                .isSameAs(version);
+        assertThat(version.getModule())
+                .isSameAs(version.getModule())
+                .isSameAs(MyModuleIdentifier.of("com.google.guava", "guava"));
+        assertThat(MyModuleVersionIdentifier.copyOf(version)).isSameAs(version);
+    }
+}